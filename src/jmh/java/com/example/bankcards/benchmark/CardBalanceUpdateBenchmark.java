@@ -0,0 +1,350 @@
+package com.example.bankcards.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import liquibase.integration.spring.SpringLiquibase;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transfer throughput and write amplification of the {@code cards} table, on an embedded PostgreSQL migrated
+ * with the real changelogs. One operation is the statements {@code CardService.transfer} sends: the ownership
+ * lookup, the debit and credit in id order, the transaction row and its two ledger entries in one batch, committed.
+ * <ul>
+ *     <li>{@code before}: the old layout, fillfactor 100 and {@code idx_cards_balance}.</li>
+ *     <li>{@code noBalanceIndex}: fillfactor 100 without the balance index.</li>
+ *     <li>{@code after}: the current layout, fillfactor 85 and no balance index.</li>
+ * </ul>
+ * The balance change itself runs one of two ways:
+ * <ul>
+ *     <li>{@code atomic}: the current path, conditional {@code UPDATE ... RETURNING} statements that check and move
+ *     the balance in the database.</li>
+ *     <li>{@code entity}: the former path, both cards read {@code FOR UPDATE} in id order, the balance checked and
+ *     computed in Java, and every column of both rows written back as Hibernate's full-row update does.</li>
+ * </ul>
+ * Each trial prints the WAL written per transfer, the share of {@code cards} updates that were heap-only (HOT)
+ * and how much the table and its indexes grew.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class CardBalanceUpdateBenchmark {
+
+    private static final int HISTORY_PER_CARD = 25;
+
+    private static final String SELECT_OWNED = "SELECT id, card_holder FROM cards WHERE id IN (?, ?) AND user_id = ?";
+    private static final String DEBIT = "UPDATE cards SET balance = balance - ?, last_entry_number = last_entry_number + 1 "
+            + "WHERE id = ? AND balance >= ? AND status = 'ACTIVE' RETURNING balance, last_entry_number";
+    private static final String CREDIT = "UPDATE cards SET balance = balance + ?, last_entry_number = last_entry_number + 1 "
+            + "WHERE id = ? AND status = 'ACTIVE' RETURNING balance, last_entry_number";
+    private static final String SELECT_FOR_UPDATE = "SELECT id, card_fingerprint, last_four_digits, card_holder, "
+            + "expiry_date, status, balance, last_entry_number, created_at, updated_at, user_id FROM cards "
+            + "WHERE id IN (?, ?) ORDER BY id FOR UPDATE";
+    private static final String UPDATE_CARD = "UPDATE cards SET balance = ?, card_fingerprint = ?, card_holder = ?, "
+            + "created_at = ?, expiry_date = ?, last_entry_number = ?, last_four_digits = ?, status = ?, updated_at = ?, "
+            + "user_id = ? WHERE id = ?";
+    private static final String INSERT_TRANSACTION = "INSERT INTO transactions (id, transaction_id, from_card_id, to_card_id, amount, "
+            + "type, status, description, created_at) VALUES (nextval('transactions_id_seq'), gen_random_uuid(), ?, ?, ?, "
+            + "'TRANSFER', 'COMPLETED', 'Transfer', CURRENT_DATE) RETURNING id";
+    private static final String INSERT_LEDGER_ENTRY = "INSERT INTO ledger_entries (id, card_id, entry_number, transaction_id, "
+            + "entry_type, amount, balance_after, created_at) VALUES (nextval('ledger_entries_id_seq'), ?, ?, ?, ?, ?, ?, now())";
+
+    @Param({"before", "noBalanceIndex", "after"})
+    private String layout;
+
+    @Param({"atomic", "entity"})
+    private String path;
+
+    @Param({"1000"})
+    private int users;
+
+    @Param({"4"})
+    private int cardsPerUser;
+
+    private EmbeddedPostgres postgres;
+    private HikariDataSource dataSource;
+    private long[] userIds;
+    private long[][] cardsByUser;
+    private final LongAdder transfers = new LongAdder();
+
+    private long startLsn;
+    private long startTableBytes;
+    private long startIndexBytes;
+
+    @State(Scope.Thread)
+    public static class Session {
+        private Connection connection;
+        private PreparedStatement selectOwned;
+        private PreparedStatement debit;
+        private PreparedStatement credit;
+        private PreparedStatement selectForUpdate;
+        private PreparedStatement updateCard;
+        private PreparedStatement insertTransaction;
+        private PreparedStatement insertLedgerEntry;
+
+        @Setup
+        public void open(CardBalanceUpdateBenchmark benchmark) throws SQLException {
+            connection = benchmark.dataSource.getConnection();
+            connection.setAutoCommit(false);
+            selectOwned = connection.prepareStatement(SELECT_OWNED);
+            debit = connection.prepareStatement(DEBIT);
+            credit = connection.prepareStatement(CREDIT);
+            selectForUpdate = connection.prepareStatement(SELECT_FOR_UPDATE);
+            updateCard = connection.prepareStatement(UPDATE_CARD);
+            insertTransaction = connection.prepareStatement(INSERT_TRANSACTION);
+            insertLedgerEntry = connection.prepareStatement(INSERT_LEDGER_ENTRY);
+        }
+
+        @TearDown
+        public void close() throws SQLException {
+            connection.close();
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        postgres = EmbeddedPostgres.builder().start();
+        HikariConfig config = new HikariConfig();
+        config.setDataSource(postgres.getPostgresDatabase());
+        config.setMaximumPoolSize(8);
+        dataSource = new HikariDataSource(config);
+
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.setChangeLog("classpath:db/changelog/db.changelog-master.yaml");
+        liquibase.setChangeLogParameters(Map.of("card.hash.salt", "7oaOj1g1AfLbcRJlRhXQbAtYF3Slsqjz"));
+        liquibase.afterPropertiesSet();
+
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            if (!layout.equals("after")) {
+                statement.execute("ALTER TABLE cards SET (fillfactor = 100)");
+            }
+            if (layout.equals("before")) {
+                statement.execute("CREATE INDEX idx_cards_balance ON cards (balance)");
+            }
+            statement.execute("INSERT INTO users (username, email, password, role, enabled) "
+                    + "SELECT 'user' || i, 'user' || i || '@example.com', 'password', 'USER', true "
+                    + "FROM generate_series(1, " + users + ") i");
+            statement.execute("INSERT INTO cards (card_fingerprint, last_four_digits, card_holder, expiry_date, status, balance, user_id) "
+                    + "SELECT sha256(int8send(u.id * 100 + n)), '0000', 'CARD HOLDER', CURRENT_DATE + 365, 'ACTIVE', 1000000, u.id "
+                    + "FROM users u CROSS JOIN generate_series(1, " + cardsPerUser + ") n WHERE u.username LIKE 'user%'");
+            // Some history, so statistics and the plans cached for foreign key checks do not assume an empty table.
+            statement.execute("INSERT INTO transactions (transaction_id, from_card_id, to_card_id, amount, type, status, created_at) "
+                    + "SELECT gen_random_uuid(), c.id, c.id, 1, 'TRANSFER', 'COMPLETED', CURRENT_DATE "
+                    + "FROM cards c CROSS JOIN generate_series(1, " + HISTORY_PER_CARD + ")");
+            statement.execute("VACUUM ANALYZE");
+            loadCards(statement);
+            statement.execute("CHECKPOINT");
+            startLsn = queryLong(statement, "SELECT pg_current_wal_lsn() - '0/0'");
+            startTableBytes = queryLong(statement, "SELECT pg_table_size('cards')");
+            startIndexBytes = queryLong(statement, "SELECT pg_indexes_size('cards')");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        long updates = 2 * transfers.sum();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            long walBytes = queryLong(statement, "SELECT pg_current_wal_lsn() - '0/0'") - startLsn;
+            // Sessions report their statistics when they close; wait until all updates are counted.
+            long counted = 0;
+            long hot = 0;
+            for (int attempt = 0; attempt < 50 && counted < updates; attempt++) {
+                Thread.sleep(100);
+                statement.execute("SELECT pg_stat_clear_snapshot()");
+                try (ResultSet resultSet = statement.executeQuery(
+                        "SELECT n_tup_upd, n_tup_hot_upd FROM pg_stat_user_tables WHERE relname = 'cards'")) {
+                    resultSet.next();
+                    counted = resultSet.getLong(1);
+                    hot = resultSet.getLong(2);
+                }
+            }
+            System.out.printf("%n[%s, %s] %d transfers: %d WAL bytes/transfer, %.1f%% HOT updates, "
+                            + "cards heap +%.1f MB, cards indexes +%.1f MB%n",
+                    layout, path, transfers.sum(), walBytes / Math.max(1, transfers.sum()),
+                    100.0 * hot / Math.max(1, counted),
+                    (queryLong(statement, "SELECT pg_table_size('cards')") - startTableBytes) / 1048576.0,
+                    (queryLong(statement, "SELECT pg_indexes_size('cards')") - startIndexBytes) / 1048576.0);
+        } finally {
+            dataSource.close();
+            postgres.close();
+        }
+    }
+
+    @Benchmark
+    public void transfer(Session session) throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int user = random.nextInt(cardsByUser.length);
+        long[] cards = cardsByUser[user];
+        int from = random.nextInt(cards.length);
+        int to = (from + 1 + random.nextInt(cards.length - 1)) % cards.length;
+        long fromCardId = cards[from];
+        long toCardId = cards[to];
+        BigDecimal amount = BigDecimal.ONE;
+
+        try {
+            BalanceChange debited;
+            BalanceChange credited;
+            if (path.equals("entity")) {
+                BalanceChange[] changes = lockAndWriteBack(session, userIds[user], fromCardId, toCardId, amount);
+                debited = changes[0];
+                credited = changes[1];
+            } else {
+                session.selectOwned.setLong(1, fromCardId);
+                session.selectOwned.setLong(2, toCardId);
+                session.selectOwned.setLong(3, userIds[user]);
+                try (ResultSet owned = session.selectOwned.executeQuery()) {
+                    while (owned.next()) {
+                        owned.getString(2);
+                    }
+                }
+                if (fromCardId <= toCardId) {
+                    debited = update(session.debit, fromCardId, amount, true);
+                    credited = update(session.credit, toCardId, amount, false);
+                } else {
+                    credited = update(session.credit, toCardId, amount, false);
+                    debited = update(session.debit, fromCardId, amount, true);
+                }
+            }
+            session.insertTransaction.setLong(1, fromCardId);
+            session.insertTransaction.setLong(2, toCardId);
+            session.insertTransaction.setBigDecimal(3, amount);
+            long transactionId;
+            try (ResultSet inserted = session.insertTransaction.executeQuery()) {
+                inserted.next();
+                transactionId = inserted.getLong(1);
+            }
+            addLedgerEntry(session.insertLedgerEntry, fromCardId, transactionId, "DEBIT", amount, debited);
+            addLedgerEntry(session.insertLedgerEntry, toCardId, transactionId, "CREDIT", amount, credited);
+            session.insertLedgerEntry.executeBatch();
+            session.connection.commit();
+            transfers.increment();
+        } catch (SQLException e) {
+            session.connection.rollback();
+            throw e;
+        }
+    }
+
+    private record BalanceChange(BigDecimal balance, long entryNumber) {
+    }
+
+    private static BalanceChange update(PreparedStatement statement, long cardId, BigDecimal amount, boolean debit) throws SQLException {
+        statement.setBigDecimal(1, amount);
+        statement.setLong(2, cardId);
+        if (debit) {
+            statement.setBigDecimal(3, amount);
+        }
+        try (ResultSet updated = statement.executeQuery()) {
+            if (!updated.next()) {
+                throw new IllegalStateException("Card " + cardId + " was not updated");
+            }
+            return new BalanceChange(updated.getBigDecimal(1), updated.getLong(2));
+        }
+    }
+
+    /**
+     * Locks both cards in id order, checks ownership, status and funds in Java and writes both rows back in full.
+     * Returns the debit and the credit, in that order.
+     */
+    private static BalanceChange[] lockAndWriteBack(Session session, long userId, long fromCardId, long toCardId,
+                                                    BigDecimal amount) throws SQLException {
+        BalanceChange[] changes = new BalanceChange[2];
+        List<Object[]> rows = new ArrayList<>(2);
+        session.selectForUpdate.setLong(1, fromCardId);
+        session.selectForUpdate.setLong(2, toCardId);
+        try (ResultSet locked = session.selectForUpdate.executeQuery()) {
+            while (locked.next()) {
+                Object[] row = new Object[11];
+                for (int column = 0; column < row.length; column++) {
+                    row[column] = locked.getObject(column + 1);
+                }
+                rows.add(row);
+            }
+        }
+        for (Object[] row : rows) {
+            long cardId = (Long) row[0];
+            BigDecimal balance = (BigDecimal) row[6];
+            if ((Long) row[10] != userId || !"ACTIVE".equals(row[5])) {
+                throw new IllegalStateException("Card " + cardId + " cannot take part in the transfer");
+            }
+            boolean debit = cardId == fromCardId;
+            if (debit && balance.compareTo(amount) < 0) {
+                throw new IllegalStateException("Card " + cardId + " has not enough money");
+            }
+            BalanceChange change = new BalanceChange(debit ? balance.subtract(amount) : balance.add(amount),
+                    (Long) row[7] + 1);
+            changes[debit ? 0 : 1] = change;
+
+            PreparedStatement update = session.updateCard;
+            update.setBigDecimal(1, change.balance());
+            update.setBytes(2, (byte[]) row[1]);
+            update.setString(3, (String) row[3]);
+            update.setObject(4, row[8]);
+            update.setObject(5, row[4]);
+            update.setLong(6, change.entryNumber());
+            update.setString(7, (String) row[2]);
+            update.setString(8, (String) row[5]);
+            update.setObject(9, row[9]);
+            update.setLong(10, userId);
+            update.setLong(11, cardId);
+            update.executeUpdate();
+        }
+        return changes;
+    }
+
+    private static void addLedgerEntry(PreparedStatement statement, long cardId, long transactionId, String type,
+                                       BigDecimal amount, BalanceChange change) throws SQLException {
+        statement.setLong(1, cardId);
+        statement.setLong(2, change.entryNumber());
+        statement.setLong(3, transactionId);
+        statement.setString(4, type);
+        statement.setBigDecimal(5, amount);
+        statement.setBigDecimal(6, change.balance());
+        statement.addBatch();
+    }
+
+    private void loadCards(Statement statement) throws SQLException {
+        List<Long> owners = new ArrayList<>();
+        List<long[]> result = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery("SELECT user_id, array_agg(cards.id ORDER BY cards.id) FROM cards "
+                + "JOIN users ON users.id = cards.user_id WHERE users.username LIKE 'user%' GROUP BY user_id ORDER BY user_id")) {
+            while (resultSet.next()) {
+                owners.add(resultSet.getLong(1));
+                Long[] ids = (Long[]) resultSet.getArray(2).getArray();
+                long[] cards = new long[ids.length];
+                for (int i = 0; i < ids.length; i++) {
+                    cards[i] = ids[i];
+                }
+                result.add(cards);
+            }
+        }
+        userIds = owners.stream().mapToLong(Long::longValue).toArray();
+        cardsByUser = result.toArray(new long[0][]);
+    }
+
+    private static long queryLong(Statement statement, String sql) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
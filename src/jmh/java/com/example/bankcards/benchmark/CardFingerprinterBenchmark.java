@@ -0,0 +1,40 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.util.CardFingerprinter;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Duplicate-detection key for one card number: the keyed fingerprint with per-thread digest and MAC, against
+ * the previous {@code CardHasher} that looked up a {@link MessageDigest} and Base64-encoded every digest.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class CardFingerprinterBenchmark {
+
+    private static final String SALT = "7oaOj1g1AfLbcRJlRhXQbAtYF3Slsqjz";
+    private static final String CARD_NUMBER = "4111111111111111";
+
+    private final CardFingerprinter cardFingerprinter = new CardFingerprinter(SALT);
+
+    @Benchmark
+    public byte[] fingerprint() {
+        return cardFingerprinter.fingerprint(CARD_NUMBER);
+    }
+
+    @Benchmark
+    public String legacyHash() throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] hash = digest.digest((CARD_NUMBER + SALT).getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(hash);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.util.CardValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Luhn check of one card number, and of a 500-number import chunk, against the previous regex-based
+ * implementation. Run with the {@code gc} profiler (the benchmarks profile does) and compare
+ * {@code gc.alloc.rate.norm}: the table-driven checks allocate 0 B/op.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class CardValidatorBenchmark {
+
+    private static final String[] CARD_NUMBERS = {
+            "4111111111111111", "5500000000000004", "378282246310005", "4111 1111 1111 1112"
+    };
+    private static final int CHUNK_SIZE = 500;
+
+    private final CardValidator cardValidator = new CardValidator();
+    private final CharSequence[] chunk = new CharSequence[CHUNK_SIZE];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+            chunk[i] = CARD_NUMBERS[i % CARD_NUMBERS.length];
+        }
+    }
+
+    private String nextCardNumber() {
+        next = (next + 1) & 3;
+        return CARD_NUMBERS[next];
+    }
+
+    @Benchmark
+    public boolean luhnCheck() {
+        return cardValidator.luhnCheck(nextCardNumber());
+    }
+
+    @Benchmark
+    public boolean legacyLuhnCheck() {
+        return legacyLuhnCheck(nextCardNumber());
+    }
+
+    @Benchmark
+    public String getCardType() {
+        return CardValidator.getCardType(nextCardNumber());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_SIZE)
+    public int luhnCheckChunk() {
+        int valid = 0;
+        for (CharSequence cardNumber : chunk) {
+            if (cardValidator.luhnCheck(cardNumber)) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    private static boolean legacyLuhnCheck(String cardNumber) {
+        if (cardNumber == null || cardNumber.trim().isEmpty()) {
+            return false;
+        }
+        String digits = cardNumber.replaceAll("\\D", "");
+        if (digits.length() < 13 || digits.length() > 19) {
+            return false;
+        }
+        int sum = 0;
+        boolean alternate = false;
+        for (int i = digits.length() - 1; i >= 0; i--) {
+            int digit = Character.getNumericValue(digits.charAt(i));
+            if (alternate) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit = digit - 9;
+                }
+            }
+            sum += digit;
+            alternate = !alternate;
+        }
+        return sum % 10 == 0;
+    }
+}
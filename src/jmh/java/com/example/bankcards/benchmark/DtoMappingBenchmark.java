@@ -0,0 +1,109 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.dto.response.PageResponse;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.enums.PageTotalMode;
+import com.example.bankcards.enums.UserRole;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.AuthenticatedUser;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.PaginationService;
+import com.example.bankcards.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity-to-DTO mapping of a full page, measured through the public service methods that do it
+ * ({@code CardService.mapToDto} and {@code UserService.matToDto} are private). The repositories are plain
+ * JDK proxies returning prebuilt entities, so the score is the mapping plus one proxy call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class DtoMappingBenchmark {
+
+    @Param({"50"})
+    private int pageSize;
+
+    private CardService cardService;
+    private UserService userService;
+    private AuthenticatedUser currentUser;
+    private Pageable pageable;
+
+    @Setup
+    public void setUp() {
+        User owner = User.builder()
+                .id(1L)
+                .username("testuser")
+                .email("test@example.com")
+                .password("{noop}password")
+                .enabled(true)
+                .role(UserRole.USER)
+                .build();
+        currentUser = AuthenticatedUser.from(owner);
+        pageable = PageRequest.of(0, pageSize);
+
+        List<Card> cards = new ArrayList<>(pageSize);
+        List<User> users = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            cards.add(Card.builder()
+                    .id((long) i)
+                    .lastFourDigits(String.format("%04d", i))
+                    .cardHolder("JOHN DOE")
+                    .expiryDate(LocalDate.now().plusYears(2))
+                    .balance(new BigDecimal("1234.56"))
+                    .createdAt(LocalDate.now())
+                    .user(owner)
+                    .build());
+            users.add(User.builder()
+                    .id((long) i)
+                    .username("user" + i)
+                    .email("user" + i + "@example.com")
+                    .role(UserRole.USER)
+                    .build());
+        }
+
+        CardRepository cardRepository = stub(CardRepository.class, "findAllByUserId", cards);
+        UserRepository userRepository = stub(UserRepository.class, "findSliceBy", new SliceImpl<>(users, pageable, true));
+        cardService = new CardService(null, cardRepository, null, null, null, null, null, null, null, null, null, null);
+        userService = new UserService(userRepository, null, null, new PaginationService(PageTotalMode.NONE, 60));
+    }
+
+    @Benchmark
+    public List<CardDto> mapCards() {
+        return cardService.getMyCards(currentUser);
+    }
+
+    @Benchmark
+    public PageResponse<UserDto> mapUsers() {
+        return userService.getAllUsers(PageTotalMode.NONE, pageable);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> repository, String method, Object result) {
+        return (T) Proxy.newProxyInstance(repository.getClassLoader(), new Class<?>[]{repository},
+                (proxy, invoked, args) -> {
+                    if (invoked.getName().equals(method)) {
+                        return result;
+                    }
+                    throw new UnsupportedOperationException(invoked.getName());
+                });
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.response.TransactionPageResponse;
+import com.example.bankcards.enums.CardStatus;
+import com.example.bankcards.enums.TransactionStatus;
+import com.example.bankcards.enums.TransactionType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response serialization of the card and transaction DTOs with a mapper configured the way Spring MVC builds
+ * its own, for a single object and for a full page ({@code GET /api/cards}, a transaction history page).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class JacksonSerializationBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter cardListWriter;
+    private CardDto card;
+    private TransactionDto transaction;
+    private List<CardDto> cards;
+    private TransactionPageResponse transactionPage;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        cardListWriter = objectMapper.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, CardDto.class));
+
+        cards = new ArrayList<>(PAGE_SIZE);
+        List<TransactionDto> transactions = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            cards.add(CardDto.builder()
+                    .id((long) i)
+                    .maskedNumber(String.format("**** **** **** %04d", i))
+                    .cardHolder("JOHN DOE")
+                    .expiryDate(LocalDate.now().plusYears(2))
+                    .balance(new BigDecimal("1234.56"))
+                    .status(CardStatus.ACTIVE)
+                    .createdAt(LocalDate.now())
+                    .build());
+            transactions.add(TransactionDto.builder()
+                    .id((long) i)
+                    .transactionId(UUID.randomUUID())
+                    .amount(new BigDecimal("100.00"))
+                    .description("Transfer")
+                    .status(TransactionStatus.COMPLETED)
+                    .type(TransactionType.TRANSFER)
+                    .createdAt(LocalDateTime.now())
+                    .fromCardId(1L)
+                    .fromCardMaskedNumber("**** **** **** 1111")
+                    .toCardId(2L)
+                    .toCardMaskedNumber("**** **** **** 2222")
+                    .build());
+        }
+        card = cards.get(0);
+        transaction = transactions.get(0);
+        transactionPage = TransactionPageResponse.builder()
+                .content(transactions)
+                .nextCursor("MjAyNC0wMS0wMVQwMDowMHwxMjM")
+                .build();
+    }
+
+    @Benchmark
+    public byte[] cardDto() throws Exception {
+        return objectMapper.writeValueAsBytes(card);
+    }
+
+    @Benchmark
+    public byte[] transactionDto() throws Exception {
+        return objectMapper.writeValueAsBytes(transaction);
+    }
+
+    @Benchmark
+    public byte[] cardList() throws Exception {
+        return cardListWriter.writeValueAsBytes(cards);
+    }
+
+    @Benchmark
+    public byte[] transactionPage() throws Exception {
+        return objectMapper.writeValueAsBytes(transactionPage);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.config.ConnectionPoolLimitFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Platform against virtual request threads at high concurrency, on an embedded Tomcat configured the way
+ * Spring Boot configures it. Each request blocks for {@code blockingMillis} outside the database (BCrypt,
+ * network) and then holds one of ten "connections" for {@code queryMillis}; the pool hands connections out
+ * in order and fails a request after {@code connectionTimeoutMillis}, like HikariCP.
+ * <p>
+ * One operation is a burst of {@code concurrency} requests. Besides the burst time, {@code ok},
+ * {@code rejected} (503 from the limiter) and {@code timedOut} (no connection in time) are reported per burst:
+ * {@code virtual} runs the app's {@link ConnectionPoolLimitFilter}, {@code virtualUnlimited} shows what
+ * happens without it.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestThreadingBenchmark {
+
+    private static final int POOL_SIZE = 10;
+    private static final int REQUESTS_PER_CONNECTION = 2;
+
+    @Param({"platform", "virtual", "virtualUnlimited"})
+    private String threads;
+
+    @Param({"2000"})
+    private int concurrency;
+
+    @Param({"20"})
+    private int blockingMillis;
+
+    @Param({"2"})
+    private int queryMillis;
+
+    @Param({"1000"})
+    private int connectionTimeoutMillis;
+
+    private WebServer server;
+    private HttpClient client;
+    private ExecutorService clientExecutor;
+    private URI uri;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Outcomes {
+        public long ok;
+        public long rejected;
+        public long timedOut;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            ok = 0;
+            rejected = 0;
+            timedOut = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        Semaphore connections = new Semaphore(POOL_SIZE, true);
+        HttpServlet servlet = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) {
+                try {
+                    Thread.sleep(blockingMillis);
+                    if (!connections.tryAcquire(connectionTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                        response.setStatus(500);
+                        return;
+                    }
+                    try {
+                        Thread.sleep(queryMillis);
+                    } finally {
+                        connections.release();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    response.setStatus(500);
+                }
+            }
+        };
+
+        TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory(0);
+        if (!threads.equals("platform")) {
+            factory.addProtocolHandlerCustomizers(handler -> handler.setExecutor(new VirtualThreadExecutor("tomcat-handler-")));
+        }
+        server = factory.getWebServer(context -> {
+            context.addServlet("simulated", servlet).addMapping("/*");
+            if (threads.equals("virtual")) {
+                context.addFilter("limiter", new ConnectionPoolLimitFilter(POOL_SIZE * REQUESTS_PER_CONNECTION,
+                                5_000, new SimpleMeterRegistry()))
+                        .addMappingForUrlPatterns(null, false, "/*");
+            }
+        });
+        server.start();
+
+        clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .build();
+        uri = URI.create("http://localhost:" + server.getPort() + "/api/cards");
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop();
+        clientExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public void burst(Outcomes outcomes) {
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            switch (response.join().statusCode()) {
+                case 200 -> outcomes.ok++;
+                case 503 -> outcomes.rejected++;
+                default -> outcomes.timedOut++;
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.service.RsaService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Card number decryptions per second on one thread (one core): a thread-local RSA cipher against
+ * {@code Cipher.getInstance} and {@code init} per call, and AES-GCM payloads under an already unwrapped
+ * session key, which is what the hybrid envelope costs per card after its single RSA operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class RsaServiceBenchmark {
+
+    private static final String CARD_NUMBER = "4111111111111111";
+
+    private RsaService rsaService;
+    private PrivateKey privateKey;
+    private String rsaPayload;
+    private SecretKey sessionKey;
+    private String aesPayload;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+        privateKey = keyPair.getPrivate();
+
+        rsaService = new RsaService();
+        ReflectionTestUtils.setField(rsaService, "publicKeyBase64",
+                Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+        ReflectionTestUtils.setField(rsaService, "privateKeyBase64",
+                Base64.getEncoder().encodeToString(privateKey.getEncoded()));
+        rsaService.init();
+
+        Cipher rsa = Cipher.getInstance("RSA/ECB/OAEPWithSHA-256AndMGF1Padding");
+        rsa.init(Cipher.ENCRYPT_MODE, keyPair.getPublic());
+        rsaPayload = Base64.getEncoder().encodeToString(rsa.doFinal(CARD_NUMBER.getBytes(StandardCharsets.UTF_8)));
+
+        byte[] keyBytes = new byte[32];
+        new SecureRandom().nextBytes(keyBytes);
+        rsa.init(Cipher.ENCRYPT_MODE, keyPair.getPublic());
+        sessionKey = rsaService.unwrapSessionKey(Base64.getEncoder().encodeToString(rsa.doFinal(keyBytes)));
+
+        byte[] iv = new byte[RsaService.GCM_IV_LENGTH];
+        new SecureRandom().nextBytes(iv);
+        Cipher aes = Cipher.getInstance("AES/GCM/NoPadding");
+        aes.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(keyBytes, "AES"),
+                new GCMParameterSpec(RsaService.GCM_TAG_LENGTH_BITS, iv));
+        byte[] cipherText = aes.doFinal(CARD_NUMBER.getBytes(StandardCharsets.UTF_8));
+        aesPayload = Base64.getEncoder().encodeToString(ByteBuffer.allocate(iv.length + cipherText.length)
+                .put(iv)
+                .put(cipherText)
+                .array());
+    }
+
+    @Benchmark
+    public String threadLocalRsaDecrypt() {
+        return rsaService.decrypt(rsaPayload);
+    }
+
+    @Benchmark
+    public String legacyRsaDecrypt() throws Exception {
+        Cipher cipher = Cipher.getInstance("RSA/ECB/OAEPWithSHA-256AndMGF1Padding");
+        cipher.init(Cipher.DECRYPT_MODE, privateKey);
+        return new String(cipher.doFinal(Base64.getDecoder().decode(rsaPayload)), StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String sessionKeyAesGcmDecrypt() {
+        return rsaService.decrypt(sessionKey, aesPayload);
+    }
+}
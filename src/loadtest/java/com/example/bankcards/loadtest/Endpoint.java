@@ -0,0 +1,37 @@
+package com.example.bankcards.loadtest;
+
+/**
+ * Operations in the load-test mix, named as in {@code loadtest.mix}.
+ */
+enum Endpoint {
+    LOGIN("login", "POST /api/auth/login"),
+    CARDS("cards", "GET /api/cards"),
+    TRANSFER("transfer", "POST /api/cards/transaction"),
+    ADMIN("admin", "GET /api/admin/users"),
+    HISTORY("history", "GET /api/admin/cards/{id}/transactions");
+
+    private final String key;
+    private final String description;
+
+    Endpoint(String key, String description) {
+        this.key = key;
+        this.description = description;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    String getDescription() {
+        return description;
+    }
+
+    static Endpoint fromKey(String key) {
+        for (Endpoint endpoint : values()) {
+            if (endpoint.key.equals(key)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Unknown endpoint in loadtest.mix: " + key);
+    }
+}
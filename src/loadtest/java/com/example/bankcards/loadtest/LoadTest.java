@@ -0,0 +1,144 @@
+package com.example.bankcards.loadtest;
+
+import com.example.bankcards.BankCardsApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Boots the application against an embedded PostgreSQL 15 (or the empty database given by
+ * {@code --loadtest.jdbc-url}), seeds it through {@code loadtest-changelog.yaml} and drives a {@link Workload}
+ * over HTTP. All {@code --} arguments are passed on to the application, so {@code --spring.threads.virtual.enabled}
+ * or any {@code app.*} setting can be compared between runs.
+ * <p>
+ * Prints count, throughput, errors, mean response size and latency percentiles per endpoint and writes each
+ * histogram to {@code <loadtest.output>/<endpoint>.hgrm} (milliseconds) for plotting or comparing runs.
+ */
+public class LoadTest {
+
+    private static final String PASSWORD = "loadtest123";
+    private static final String CARD_HASH_SALT = "loadtest-card-hash-salt";
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    public static void main(String[] args) throws Exception {
+        SimpleCommandLinePropertySource options = new SimpleCommandLinePropertySource(args);
+        int users = Integer.parseInt(option(options, "loadtest.users", "1000"));
+        int concurrency = Integer.parseInt(option(options, "loadtest.concurrency", "64"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(option(options, "loadtest.warmup", "10")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(option(options, "loadtest.duration", "60")));
+        Map<Endpoint, Integer> mix = parseMix(option(options, "loadtest.mix", "login:5,cards:60,transfer:30,admin:5"));
+        Path output = Path.of(option(options, "loadtest.output", "target/loadtest"));
+        String jdbcUrl = option(options, "loadtest.jdbc-url", "");
+
+        EmbeddedPostgres postgres = null;
+        if (jdbcUrl.isBlank()) {
+            postgres = EmbeddedPostgres.start();
+            jdbcUrl = postgres.getJdbcUrl("postgres", "postgres");
+        }
+
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("server.port", 0);
+        defaults.put("spring.main.banner-mode", "off");
+        defaults.put("logging.level.root", "WARN");
+        defaults.put("spring.datasource.url", jdbcUrl);
+        defaults.put("spring.datasource.username", "postgres");
+        defaults.put("spring.jpa.hibernate.ddl-auto", "validate");
+        defaults.put("spring.liquibase.change-log", "classpath:db/changelog/loadtest-changelog.yaml");
+        defaults.put("spring.liquibase.parameters.card.hash.salt", CARD_HASH_SALT);
+        defaults.put("spring.liquibase.parameters.loadtest.users", users);
+        defaults.put("spring.liquibase.parameters.loadtest.cards-per-user", option(options, "loadtest.cards-per-user", "3"));
+        defaults.put("spring.liquibase.parameters.loadtest.password", PASSWORD);
+        defaults.put("app.card.hash.salt", CARD_HASH_SALT);
+        defaults.put("app.jwtSecret", "f7a8b9c2d3e4f5a6b7c8d9e0f1a2b3c4d5e6f7a8b9c0d1e2f3a4b5c6d7e8f9a0");
+        defaults.put("app.jwtExpirationMs", Duration.ofHours(1).toMillis());
+        defaults.put("app.cors.allowed-origins", "http://localhost");
+        KeyPairGenerator rsa = KeyPairGenerator.getInstance("RSA");
+        rsa.initialize(2048);
+        KeyPair keys = rsa.generateKeyPair();
+        defaults.put("app.rsa.private-key", Base64.getEncoder().encodeToString(keys.getPrivate().getEncoded()));
+        defaults.put("app.rsa.public-key", Base64.getEncoder().encodeToString(keys.getPublic().getEncoded()));
+
+        ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        try (ConfigurableApplicationContext app = new SpringApplicationBuilder(BankCardsApplication.class)
+                .properties(defaults)
+                .run(args)) {
+            URI baseUri = URI.create("http://localhost:" + app.getEnvironment().getProperty("local.server.port"));
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(clientExecutor)
+                    .build();
+
+            System.out.printf("Load test: users=%d, concurrency=%d, warmup=%ds, duration=%ds, mix=%s, virtualThreads=%s%n",
+                    users, concurrency, warmup.toSeconds(), duration.toSeconds(), mix,
+                    app.getEnvironment().getProperty("spring.threads.virtual.enabled", "false"));
+            Workload.Result result = new Workload(client, baseUri, users, PASSWORD, mix).run(concurrency, warmup, duration);
+            report(result, output);
+        } finally {
+            clientExecutor.shutdownNow();
+            if (postgres != null) {
+                postgres.close();
+            }
+        }
+    }
+
+    private static void report(Workload.Result result, Path output) throws Exception {
+        double seconds = result.measured().toNanos() / 1e9;
+        System.out.printf("%n%-40s %9s %7s %9s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "bytes", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        Files.createDirectories(output);
+        long total = 0;
+        for (Map.Entry<Endpoint, Histogram> entry : result.histograms().entrySet()) {
+            Histogram histogram = entry.getValue();
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            total += histogram.getTotalCount();
+            System.out.printf("%-40s %9d %7d %9.1f %9d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey().getDescription(), histogram.getTotalCount(), result.errors().get(entry.getKey()),
+                    histogram.getTotalCount() / seconds,
+                    result.bodyBytes().get(entry.getKey()) / histogram.getTotalCount(),
+                    millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                    histogram.getMaxValue() / MICROS_PER_MILLI);
+            try (PrintStream file = new PrintStream(output.resolve(entry.getKey().getKey() + ".hgrm").toFile())) {
+                histogram.outputPercentileDistribution(file, MICROS_PER_MILLI);
+            }
+        }
+        System.out.printf("%-40s %9d %7s %9.1f%n", "total", total, "", total / seconds);
+        System.out.println("Histograms written to " + output.toAbsolutePath());
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+    }
+
+    private static String option(SimpleCommandLinePropertySource options, String name, String defaultValue) {
+        String value = options.getProperty(name);
+        return value == null ? defaultValue : value;
+    }
+
+    private static Map<Endpoint, Integer> parseMix(String mix) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String part : mix.split(",")) {
+            String[] keyAndWeight = part.trim().split(":");
+            weights.put(Endpoint.fromKey(keyAndWeight[0].trim()), Integer.parseInt(keyAndWeight[1].trim()));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.bankcards.loadtest;
+
+import com.example.bankcards.util.CardFingerprinter;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.SetupException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * Inserts {@code loaduser-1..N}, all with the same password, and {@code cardsPerUser} active cards each with
+ * a balance large enough that transfers never run dry. Card fingerprints go through {@link CardFingerprinter}
+ * like the ones the app creates, so duplicate checks and the Bloom filter see realistic data. Each balance is
+ * recorded as the card's opening ledger entry, so ledger verification holds after a load test.
+ */
+public class LoadTestSeed implements CustomTaskChange {
+
+    public static final String USERNAME_PREFIX = "loaduser-";
+
+    private static final int BATCH_SIZE = 1000;
+    private static final BigDecimal BALANCE = new BigDecimal("1000000.00");
+
+    private String users;
+    private String cardsPerUser;
+    private String password;
+    private String hmacKey;
+    private int insertedCards;
+
+    public void setUsers(String users) {
+        this.users = users;
+    }
+
+    public void setCardsPerUser(String cardsPerUser) {
+        this.cardsPerUser = cardsPerUser;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public void setHmacKey(String hmacKey) {
+        this.hmacKey = hmacKey;
+    }
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        int userCount = Integer.parseInt(users);
+        int cardCount = Integer.parseInt(cardsPerUser);
+        CardFingerprinter fingerprinter = new CardFingerprinter(hmacKey);
+        String passwordHash = new BCryptPasswordEncoder().encode(password);
+        Date expiryDate = Date.valueOf(LocalDate.now().plusYears(3));
+        Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+
+        try (PreparedStatement insertUser = connection.prepareStatement(
+                "INSERT INTO users (username, email, password, role, enabled) VALUES (?, ?, ?, 'USER', TRUE)");
+             PreparedStatement selectUsers = connection.prepareStatement(
+                     "SELECT id, username FROM users WHERE username LIKE '" + USERNAME_PREFIX + "%' ORDER BY id");
+             PreparedStatement insertCard = connection.prepareStatement(
+                     "INSERT INTO cards (card_fingerprint, last_four_digits, card_holder, expiry_date, status, balance, "
+                             + "last_entry_number, user_id, created_at, updated_at) "
+                             + "VALUES (?, ?, ?, ?, 'ACTIVE', ?, 1, ?, CURRENT_DATE, CURRENT_DATE)");
+             PreparedStatement insertOpeningEntries = connection.prepareStatement(
+                     "INSERT INTO ledger_entries (card_id, entry_number, entry_type, amount, balance_after) "
+                             + "SELECT c.id, 1, 'OPENING', c.balance, c.balance FROM cards c JOIN users u ON u.id = c.user_id "
+                             + "WHERE u.username LIKE '" + USERNAME_PREFIX + "%'")) {
+            for (int i = 1; i <= userCount; i++) {
+                insertUser.setString(1, USERNAME_PREFIX + i);
+                insertUser.setString(2, USERNAME_PREFIX + i + "@loadtest.local");
+                insertUser.setString(3, passwordHash);
+                insertUser.addBatch();
+                if (i % BATCH_SIZE == 0 || i == userCount) {
+                    insertUser.executeBatch();
+                    commit(connection);
+                }
+            }
+
+            long cardNumber = 4_000_000_000_000_000L;
+            try (ResultSet rows = selectUsers.executeQuery()) {
+                while (rows.next()) {
+                    long userId = rows.getLong(1);
+                    String holder = rows.getString(2).toUpperCase();
+                    for (int c = 0; c < cardCount; c++) {
+                        String number = Long.toString(cardNumber++);
+                        insertCard.setBytes(1, fingerprinter.fingerprint(number));
+                        insertCard.setString(2, "**** **** **** " + number.substring(number.length() - 4));
+                        insertCard.setString(3, holder);
+                        insertCard.setDate(4, expiryDate);
+                        insertCard.setBigDecimal(5, BALANCE);
+                        insertCard.setLong(6, userId);
+                        insertCard.addBatch();
+                        if (++insertedCards % BATCH_SIZE == 0) {
+                            insertCard.executeBatch();
+                        }
+                    }
+                }
+            }
+            insertCard.executeBatch();
+            insertOpeningEntries.executeUpdate();
+            commit(connection);
+        } catch (SQLException e) {
+            throw new CustomChangeException("Could not seed load-test data", e);
+        }
+    }
+
+    private static void commit(Connection connection) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Seeded " + users + " load-test users with " + insertedCards + " cards";
+    }
+
+    @Override
+    public void setUp() throws SetupException {
+        try {
+            if (Integer.parseInt(users) < 1 || Integer.parseInt(cardsPerUser) < 2) {
+                throw new SetupException("users must be positive and cardsPerUser at least 2 for transfers");
+            }
+        } catch (NumberFormatException e) {
+            throw new SetupException("users and cardsPerUser must be numbers", e);
+        }
+        if (password == null || password.isBlank() || hmacKey == null || hmacKey.isBlank()) {
+            throw new SetupException("password and hmacKey must be set through changelog parameters");
+        }
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+    }
+
+    // Parameters are only bound right before setUp(), so they are checked there rather than here.
+    @Override
+    public ValidationErrors validate(Database database) {
+        return new ValidationErrors();
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.bankcards.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-model workload: {@code concurrency} virtual-thread clients, each logged in as its own seeded user,
+ * pick the next operation by weight and send it as soon as the previous one answered. Latencies are recorded
+ * in microseconds after the warm-up, together with the response body bytes. Because a client waits for its
+ * response before the next request, a saturated server shows up as lower throughput rather than in the
+ * percentiles.
+ */
+class Workload {
+
+    private static final long MAX_LATENCY_MICROS = Duration.ofMinutes(1).toNanos() / 1000;
+    private static final int ADMIN_PAGE_SIZE = 20;
+    private static final HttpResponse.BodyHandler<Integer> BODY_SIZE = responseInfo ->
+            HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), body -> body.length);
+
+    private final HttpClient client;
+    private final URI baseUri;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int users;
+    private final String password;
+    private final Endpoint[] weightedEndpoints;
+    private final Map<Endpoint, Recorder> recorders = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, LongAdder> errors = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, LongAdder> bodyBytes = new EnumMap<>(Endpoint.class);
+    private volatile boolean running = true;
+    private volatile String adminToken;
+
+    Workload(HttpClient client, URI baseUri, int users, String password, Map<Endpoint, Integer> mix) {
+        this.client = client;
+        this.baseUri = baseUri;
+        this.users = users;
+        this.password = password;
+        List<Endpoint> weighted = new ArrayList<>();
+        mix.forEach((endpoint, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(endpoint);
+            }
+        });
+        if (weighted.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix has no positive weights");
+        }
+        this.weightedEndpoints = weighted.toArray(Endpoint[]::new);
+        for (Endpoint endpoint : Endpoint.values()) {
+            recorders.put(endpoint, new Recorder(MAX_LATENCY_MICROS, 3));
+            errors.put(endpoint, new LongAdder());
+            bodyBytes.put(endpoint, new LongAdder());
+        }
+    }
+
+    /**
+     * Runs the mix for {@code warmup} unmeasured and then {@code duration} measured, and returns the
+     * histograms of the measured part.
+     */
+    Result run(int concurrency, Duration warmup, Duration duration) throws Exception {
+        adminToken = login("admin", "admin123");
+
+        List<Thread> clients = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            String username = LoadTestSeed.USERNAME_PREFIX + (i % users + 1);
+            clients.add(Thread.ofVirtual().name("loadtest-client-" + i).start(() -> runClient(username)));
+        }
+
+        Thread.sleep(warmup.toMillis());
+        recorders.values().forEach(Recorder::getIntervalHistogram);
+        errors.values().forEach(LongAdder::reset);
+        bodyBytes.values().forEach(LongAdder::reset);
+        long started = System.nanoTime();
+
+        Thread.sleep(duration.toMillis());
+        Map<Endpoint, Histogram> histograms = new EnumMap<>(Endpoint.class);
+        recorders.forEach((endpoint, recorder) -> histograms.put(endpoint, recorder.getIntervalHistogram()));
+        Map<Endpoint, Long> errorCounts = new EnumMap<>(Endpoint.class);
+        errors.forEach((endpoint, count) -> errorCounts.put(endpoint, count.sum()));
+        Map<Endpoint, Long> bodyByteCounts = new EnumMap<>(Endpoint.class);
+        bodyBytes.forEach((endpoint, count) -> bodyByteCounts.put(endpoint, count.sum()));
+        Duration measured = Duration.ofNanos(System.nanoTime() - started);
+
+        running = false;
+        for (Thread thread : clients) {
+            thread.join();
+        }
+        return new Result(histograms, errorCounts, bodyByteCounts, measured);
+    }
+
+    private void runClient(String username) {
+        try {
+            String token = login(username, password);
+            long[] cardIds = cardIds(token);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (running) {
+                Endpoint endpoint = weightedEndpoints[random.nextInt(weightedEndpoints.length)];
+                HttpRequest request = switch (endpoint) {
+                    case LOGIN -> loginRequest(username, password);
+                    case CARDS -> authorized(token, "/api/cards").GET().build();
+                    case TRANSFER -> transferRequest(token, cardIds, random);
+                    case ADMIN -> authorized(adminToken, "/api/admin/users?size=" + ADMIN_PAGE_SIZE
+                            + "&page=" + random.nextInt(Math.max(1, users / ADMIN_PAGE_SIZE))).GET().build();
+                    case HISTORY -> authorized(adminToken, "/api/admin/cards/" + cardIds[random.nextInt(cardIds.length)]
+                            + "/transactions?size=" + ADMIN_PAGE_SIZE).GET().build();
+                };
+                long started = System.nanoTime();
+                HttpResponse<Integer> response = client.send(request, BODY_SIZE);
+                recorders.get(endpoint).recordValue(Math.min((System.nanoTime() - started) / 1000, MAX_LATENCY_MICROS));
+                bodyBytes.get(endpoint).add(response.body());
+                if (response.statusCode() >= 400) {
+                    errors.get(endpoint).increment();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new IllegalStateException("Load-test client " + username + " failed", e);
+        }
+    }
+
+    private HttpRequest transferRequest(String token, long[] cardIds, ThreadLocalRandom random) {
+        int from = random.nextInt(cardIds.length);
+        int to = (from + 1 + random.nextInt(cardIds.length - 1)) % cardIds.length;
+        String body = "{\"fromCardId\":" + cardIds[from] + ",\"toCardId\":" + cardIds[to] + ",\"amount\":0.01}";
+        return authorized(token, "/api/cards/transaction")
+                .header("Content-Type", "application/json")
+                .header("Idempotency-Key", UUID.randomUUID().toString())
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private String login(String username, String password) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(loginRequest(username, password), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login as " + username + " failed with " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body()).get("accessToken").asText();
+    }
+
+    private long[] cardIds(String token) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(authorized(token, "/api/cards").GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        JsonNode cards = objectMapper.readTree(response.body());
+        if (response.statusCode() != 200 || cards.size() < 2) {
+            throw new IllegalStateException("Expected at least two seeded cards, got " + response.body());
+        }
+        long[] ids = new long[cards.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = cards.get(i).get("id").asLong();
+        }
+        return ids;
+    }
+
+    private HttpRequest loginRequest(String username, String password) {
+        String body = "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}";
+        return HttpRequest.newBuilder(baseUri.resolve("/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest.Builder authorized(String token, String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).header("Authorization", "Bearer " + token);
+    }
+
+    record Result(Map<Endpoint, Histogram> histograms, Map<Endpoint, Long> errors, Map<Endpoint, Long> bodyBytes,
+                  Duration measured) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.bankcards.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.data.web.SpringDataWebAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.config.PageableHandlerMethodArgumentResolverCustomizer;
+
+/**
+ * Applies {@code app.pagination.*} to every {@code Pageable} controller argument: a larger {@code size} is
+ * cut down to {@code max-page-size}, and requests without a sort are ordered by id so that pages are stable.
+ * Replaces the {@code spring.data.web.pageable.*} customizer of {@link SpringDataWebAutoConfiguration}.
+ */
+@Configuration(proxyBeanMethods = false)
+public class PaginationConfig {
+
+    @Bean
+    public PageableHandlerMethodArgumentResolverCustomizer pageableLimits(
+            @Value("${app.pagination.default-page-size:10}") int defaultPageSize,
+            @Value("${app.pagination.max-page-size:50}") int maxPageSize) {
+        return resolver -> {
+            resolver.setMaxPageSize(maxPageSize);
+            resolver.setFallbackPageable(PageRequest.of(0, defaultPageSize, Sort.by("id")));
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.security.AuthenticatedUser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Remembers which users changed their own data in the last {@code read-your-writes-ms}, so their read-only
+ * work stays on the primary until a replica has had time to catch up. The window opens when the write
+ * commits. It is local to this instance, and requests without an authenticated user are covered only by
+ * the replica lag limit.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private final Cache<Long, Boolean> recentWriters;
+
+    public ReadYourWritesTracker(@Value("${app.datasource.replica.read-your-writes-ms:5000}") long windowMs,
+                                 @Value("${app.datasource.replica.read-your-writes-max-users:100000}") long maxUsers) {
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofMillis(windowMs))
+                .build();
+    }
+
+    public void recordWrite(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recentWriters.put(userId, Boolean.TRUE);
+                }
+            });
+        } else {
+            recentWriters.put(userId, Boolean.TRUE);
+        }
+    }
+
+    public boolean hasRecentWrite(Long userId) {
+        return recentWriters.getIfPresent(userId) != null;
+    }
+
+    /**
+     * Whether the user authenticated for the current request wrote within the window.
+     */
+    public boolean currentUserWroteRecently() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null
+                && authentication.getPrincipal() instanceof AuthenticatedUser user
+                && hasRecentWrite(user.getId());
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.bankcards.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Sends connections for read-only transactions declared by the application to a replica, round-robin, and
+ * everything else to the primary. That includes work outside any transaction and the read-only transactions
+ * Spring Data opens around its own CRUD methods: a {@code findById} outside a service transaction is usually
+ * the read of a read-modify-write, and a lagging replica would hand it a stale row to save back. A read also
+ * stays on the primary when the current user wrote recently ({@link ReadYourWritesTracker}) or when no replica
+ * is within {@code maxLagMillis}. Lag is polled by {@link #checkLag()}; a replica that
+ * has not answered yet, or failed to, is not used.
+ * <p>
+ * The read-only flag is only known once the transaction has begun, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements MeterBinder, DisposableBean {
+
+    private static final String PRIMARY = "primary";
+
+    // Spring Data names the default transactions of its repositories after the implementing method.
+    private static final String REPOSITORY_TRANSACTION_PREFIX = "org.springframework.data.";
+
+    // Zero while the replica has replayed everything it received, so an idle primary does not read as lag.
+    private static final String LAG_QUERY = """
+            SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+                   END""";
+
+    private final List<Replica> replicas;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    private Counter replicaReads;
+    private Counter readYourWritesFallbacks;
+    private Counter lagFallbacks;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources,
+                                    ReadYourWritesTracker readYourWritesTracker, long maxLagMillis) {
+        this.replicas = IntStream.range(0, replicaDataSources.size())
+                .mapToObj(i -> new Replica("replica-" + i, replicaDataSources.get(i)))
+                .toList();
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.maxLagMillis = maxLagMillis;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicas.forEach(replica -> targets.put(replica.name, replica.dataSource));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || isRepositoryDefaultTransaction()) {
+            return PRIMARY;
+        }
+        if (readYourWritesTracker.currentUserWroteRecently()) {
+            increment(readYourWritesFallbacks);
+            return PRIMARY;
+        }
+        int start = next.getAndIncrement();
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+            if (replica.lagMillis <= maxLagMillis) {
+                increment(replicaReads);
+                return replica.name;
+            }
+        }
+        increment(lagFallbacks);
+        return PRIMARY;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval-ms:1000}")
+    public void checkLag() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet result = statement.executeQuery(LAG_QUERY)) {
+                result.next();
+                replica.lagMillis = (long) result.getDouble(1);
+                if (replica.lagMillis > maxLagMillis) {
+                    log.warn("Replica behind, reading from primary: replica={}, lagMs={}", replica.name, replica.lagMillis);
+                }
+            } catch (SQLException e) {
+                replica.lagMillis = Long.MAX_VALUE;
+                log.warn("Replica unavailable, reading from primary: replica={}, error={}", replica.name, e.getMessage());
+            }
+        }
+    }
+
+    private static boolean isRepositoryDefaultTransaction() {
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        return name != null && name.startsWith(REPOSITORY_TRANSACTION_PREFIX);
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        replicaReads = Counter.builder("bank.db.route").tag("target", "replica").tag("reason", "read-only")
+                .register(registry);
+        readYourWritesFallbacks = Counter.builder("bank.db.route").tag("target", "primary").tag("reason", "read-your-writes")
+                .register(registry);
+        lagFallbacks = Counter.builder("bank.db.route").tag("target", "primary").tag("reason", "replica-lag")
+                .register(registry);
+        for (Replica replica : replicas) {
+            Gauge.builder("bank.db.replica.lag", replica, r -> r.lagMillis == Long.MAX_VALUE ? Double.NaN : r.lagMillis)
+                    .tag("replica", replica.name)
+                    .baseUnit(BaseUnits.MILLISECONDS)
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof HikariDataSource hikari) {
+                hikari.close();
+            }
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile long lagMillis = Long.MAX_VALUE;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.bankcards.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Active with {@code spring.threads.virtual.enabled=true}, which makes Spring Boot run Tomcat requests,
+ * MVC async work ({@code StreamingResponseBody}), {@code @Async} and {@code @Scheduled} tasks on virtual
+ * threads. Adds the {@link ConnectionPoolLimitFilter} in front of security (authentication may hit the
+ * database too), sized from the HikariCP pool: {@code maximumPoolSize * requests-per-connection}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Slf4j
+public class VirtualThreadConfig {
+
+    /** What HikariCP uses when {@code maximum-pool-size} is not configured. */
+    private static final int HIKARI_DEFAULT_POOL_SIZE = 10;
+
+    @Bean
+    public FilterRegistrationBean<ConnectionPoolLimitFilter> connectionPoolLimitFilter(
+            DataSource dataSource,
+            MeterRegistry meterRegistry,
+            @Value("${app.virtual-threads.requests-per-connection:2}") int requestsPerConnection,
+            @Value("${app.virtual-threads.acquire-timeout-ms:5000}") long acquireTimeoutMs) {
+        int maxConcurrentRequests = maximumPoolSize(dataSource) * requestsPerConnection;
+        log.info("Virtual threads enabled, limiting concurrent requests: maxConcurrentRequests={}, acquireTimeoutMs={}",
+                maxConcurrentRequests, acquireTimeoutMs);
+
+        FilterRegistrationBean<ConnectionPoolLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConnectionPoolLimitFilter(maxConcurrentRequests, acquireTimeoutMs, meterRegistry));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+
+    // Filters are created with the web server, before anything has started the pool, so an unconfigured
+    // size still reads as -1 here.
+    private static int maximumPoolSize(DataSource dataSource) {
+        try {
+            int configured = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            return configured > 0 ? configured : HIKARI_DEFAULT_POOL_SIZE;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Virtual threads need a HikariCP data source to size the request limit", e);
+        }
+    }
+}
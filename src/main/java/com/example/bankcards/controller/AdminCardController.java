@@ -3,18 +3,20 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.CardDto;
 import com.example.bankcards.dto.MessageDto;
-import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.response.LedgerPageResponse;
+import com.example.bankcards.dto.response.LedgerVerificationResponse;
+import com.example.bankcards.dto.response.PageResponse;
+import com.example.bankcards.dto.response.TransactionPageResponse;
 import com.example.bankcards.enums.CardStatus;
+import com.example.bankcards.enums.PageTotalMode;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.LedgerService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/admin/cards")
 @PreAuthorize("hasRole('ADMIN')")
@@ -22,12 +24,14 @@ import java.util.List;
 public class AdminCardController {
 
     private final CardService cardService;
+    private final LedgerService ledgerService;
 
     @GetMapping
-    public ResponseEntity<Page<CardDto>> getAllCards(@RequestParam(required = false) Long userId,
-                                                     @RequestParam(required = false) CardStatus status,
-                                                     Pageable pageable) {
-        return ResponseEntity.ok(cardService.getAllCards(userId, status, pageable));
+    public ResponseEntity<PageResponse<CardDto>> getAllCards(@RequestParam(required = false) Long userId,
+                                                             @RequestParam(required = false) CardStatus status,
+                                                             @RequestParam(required = false) PageTotalMode total,
+                                                             Pageable pageable) {
+        return ResponseEntity.ok(cardService.getAllCards(userId, status, total, pageable));
     }
 
     @PostMapping("/{cardId}/block")
@@ -46,8 +50,22 @@ public class AdminCardController {
     }
 
     @GetMapping("/{cardId}/transactions")
-    public ResponseEntity<List<TransactionDto>> getCardTransactions(@PathVariable Long cardId) {
-        return ResponseEntity.ok(cardService.getCardTransactions(cardId));
+    public ResponseEntity<TransactionPageResponse> getCardTransactions(@PathVariable Long cardId,
+                                                                       @RequestParam(required = false) String cursor,
+                                                                       @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(cardService.getCardTransactions(cardId, cursor, size));
+    }
+
+    @GetMapping("/{cardId}/ledger")
+    public ResponseEntity<LedgerPageResponse> getCardLedger(@PathVariable Long cardId,
+                                                            @RequestParam(required = false) String cursor,
+                                                            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(ledgerService.getCardLedger(cardId, cursor, size));
+    }
+
+    @GetMapping("/ledger/verification")
+    public ResponseEntity<LedgerVerificationResponse> verifyLedger() {
+        return ResponseEntity.ok(ledgerService.verify());
     }
 
 }
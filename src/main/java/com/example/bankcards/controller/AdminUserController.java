@@ -1,11 +1,12 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.dto.response.PageResponse;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.enums.PageTotalMode;
 import com.example.bankcards.enums.UserRole;
 import com.example.bankcards.service.UserService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -22,8 +23,9 @@ public class AdminUserController {
     private final UserService userService;
 
     @GetMapping
-    public ResponseEntity<Page<UserDto>> getAllUsers(Pageable pageable) {
-        return ResponseEntity.ok(userService.getAllUsers(pageable));
+    public ResponseEntity<PageResponse<UserDto>> getAllUsers(@RequestParam(required = false) PageTotalMode total,
+                                                             Pageable pageable) {
+        return ResponseEntity.ok(userService.getAllUsers(total, pageable));
     }
 
     @GetMapping("/{userId}")
@@ -1,19 +1,29 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.request.BatchTransferRequest;
 import com.example.bankcards.dto.request.CreateCardRequest;
 import com.example.bankcards.dto.request.TransferRequest;
 import com.example.bankcards.dto.request.UpdateCardRequest;
 import com.example.bankcards.dto.MessageDto;
+import com.example.bankcards.dto.response.BatchTransferResponse;
+import com.example.bankcards.security.AuthenticatedUser;
+import com.example.bankcards.service.CardImportService;
+import com.example.bankcards.service.CardMetrics;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.IdempotencyService;
+import io.micrometer.core.instrument.Timer;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/cards")
@@ -21,42 +31,68 @@ import java.util.List;
 public class CardController {
 
     private final CardService cardService;
+    private final CardImportService cardImportService;
+    private final IdempotencyService idempotencyService;
+    private final CardMetrics cardMetrics;
 
     @PostMapping
-    public ResponseEntity<CardDto> createCard(@AuthenticationPrincipal UserDetails userDetails, @Valid @RequestBody CreateCardRequest request) {
-        return ResponseEntity.status(201).body(cardService.createCard(userDetails,request));
+    public ResponseEntity<CardDto> createCard(@AuthenticationPrincipal AuthenticatedUser currentUser, @Valid @RequestBody CreateCardRequest request) {
+        return ResponseEntity.status(201).body(cardService.createCard(currentUser,request));
     }
 
     @GetMapping
-    public ResponseEntity<List<CardDto>> getAllCards(@AuthenticationPrincipal UserDetails userDetails) {
-        return ResponseEntity.ok(cardService.getMyCards(userDetails));
+    public ResponseEntity<List<CardDto>> getAllCards(@AuthenticationPrincipal AuthenticatedUser currentUser) {
+        return ResponseEntity.ok(cardService.getMyCards(currentUser));
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<MessageDto> deleteCard(@AuthenticationPrincipal UserDetails userDetails, @PathVariable Long id) {
-        return ResponseEntity.status(204).body(cardService.deleteCard(userDetails, id));
+    public ResponseEntity<MessageDto> deleteCard(@AuthenticationPrincipal AuthenticatedUser currentUser, @PathVariable Long id) {
+        return ResponseEntity.status(204).body(cardService.deleteCard(currentUser, id));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<CardDto> getCard(@AuthenticationPrincipal UserDetails userDetails, @PathVariable Long id) {
-        return ResponseEntity.ok(cardService.getCardById(userDetails, id));
+    public ResponseEntity<CardDto> getCard(@AuthenticationPrincipal AuthenticatedUser currentUser, @PathVariable Long id) {
+        return ResponseEntity.ok(cardService.getCardById(currentUser, id));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<CardDto> updateCard(@AuthenticationPrincipal UserDetails  userDetails, @PathVariable Long id, @Valid @RequestBody UpdateCardRequest request) {
-        return ResponseEntity.ok(cardService.updateCard(userDetails, id, request));
+    public ResponseEntity<CardDto> updateCard(@AuthenticationPrincipal AuthenticatedUser currentUser, @PathVariable Long id, @Valid @RequestBody UpdateCardRequest request) {
+        return ResponseEntity.ok(cardService.updateCard(currentUser, id, request));
     }
 
     @PostMapping("/{cardId}/block-request")
     public ResponseEntity<MessageDto> requestBlockCard(
-            @AuthenticationPrincipal UserDetails userDetails,
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
             @PathVariable Long cardId) {
 
-        return ResponseEntity.ok(cardService.requestBlockCard(userDetails, cardId));
+        return ResponseEntity.ok(cardService.requestBlockCard(currentUser, cardId));
     }
 
     @PostMapping("/transaction")
-    public ResponseEntity<MessageDto> transfer(@AuthenticationPrincipal UserDetails userDetails, @Valid @RequestBody TransferRequest request) {
-        return ResponseEntity.status(201).body(cardService.transfer(userDetails, request));
+    public ResponseEntity<MessageDto> transfer(@AuthenticationPrincipal AuthenticatedUser currentUser,
+                                               @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+                                               @Valid @RequestBody TransferRequest request) {
+        // Retries answered from the idempotency cache never open the transfer's transaction.
+        if (currentUser != null && idempotencyKey != null) {
+            Timer.Sample sample = cardMetrics.startTimer();
+            Optional<MessageDto> replay = idempotencyService.replayIfCached(currentUser.getUsername(), idempotencyKey, request);
+            if (replay.isPresent()) {
+                cardMetrics.recordTransfer(sample, CardMetrics.TransferOutcome.REPLAYED);
+                return ResponseEntity.status(201).body(replay.get());
+            }
+        }
+        return ResponseEntity.status(201).body(cardService.transfer(currentUser, request, idempotencyKey));
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importCards(@AuthenticationPrincipal AuthenticatedUser currentUser, InputStream body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(cardImportService.importCards(currentUser, body));
+    }
+
+    @PostMapping("/transactions/batch")
+    public ResponseEntity<BatchTransferResponse> transferBatch(@AuthenticationPrincipal AuthenticatedUser currentUser, @Valid @RequestBody BatchTransferRequest request) {
+        return ResponseEntity.ok(cardService.transferBatch(currentUser, request.getTransfers()));
     }
 }
@@ -0,0 +1,24 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.enums.LedgerEntryType;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class LedgerEntryDto {
+    Long entryNumber;
+    LedgerEntryType type;
+    BigDecimal amount;
+    BigDecimal balanceAfter;
+    UUID transactionId;
+    LocalDateTime createdAt;
+}
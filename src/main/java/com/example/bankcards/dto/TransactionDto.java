@@ -1,10 +1,7 @@
 package com.example.bankcards.dto;
 
-import com.example.bankcards.entity.Card;
-import com.example.bankcards.entity.Transaction;
 import com.example.bankcards.enums.TransactionStatus;
 import com.example.bankcards.enums.TransactionType;
-import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 
@@ -26,6 +23,8 @@ public class TransactionDto {
     TransactionStatus status = TransactionStatus.COMPLETED;
     TransactionType type;
     LocalDateTime createdAt;
-    Card fromCard;
-    Card toCard;
+    Long fromCardId;
+    String fromCardMaskedNumber;
+    Long toCardId;
+    String toCardMaskedNumber;
 }
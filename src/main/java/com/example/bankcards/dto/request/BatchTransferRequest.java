@@ -0,0 +1,22 @@
+package com.example.bankcards.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BatchTransferRequest {
+    @NotEmpty(message = "Transfers are required")
+    @Size(max = 1000, message = "A batch can contain at most 1000 transfers")
+    @Valid
+    List<TransferRequest> transfers;
+}
@@ -0,0 +1,22 @@
+package com.example.bankcards.dto.response;
+
+import com.example.bankcards.enums.TransactionStatus;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.UUID;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BatchTransferItemResult {
+    int index;
+    Long fromCardId;
+    Long toCardId;
+    TransactionStatus status;
+    UUID transactionId;
+    String message;
+}
@@ -0,0 +1,18 @@
+package com.example.bankcards.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BatchTransferResponse {
+    int completed;
+    int failed;
+    List<BatchTransferItemResult> results;
+}
@@ -0,0 +1,19 @@
+package com.example.bankcards.dto.response;
+
+import com.example.bankcards.enums.CardImportStatus;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CardImportResult {
+    int line;
+    CardImportStatus status;
+    Long cardId;
+    String maskedNumber;
+    String message;
+}
@@ -0,0 +1,20 @@
+package com.example.bankcards.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.math.BigDecimal;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class LedgerBalanceMismatch {
+    Long cardId;
+    BigDecimal cachedBalance;
+    BigDecimal ledgerBalance;
+    Long cachedEntryNumber;
+    Long ledgerEntryNumber;
+}
@@ -0,0 +1,19 @@
+package com.example.bankcards.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class LedgerVerificationResponse {
+    boolean consistent;
+    List<LedgerBalanceMismatch> balanceMismatches;
+    long brokenChainEntries;
+    long unbalancedTransactions;
+}
@@ -0,0 +1,25 @@
+package com.example.bankcards.dto.response;
+
+import com.example.bankcards.enums.PageTotalMode;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PageResponse<T> {
+    List<T> content;
+    int page;
+    int size;
+    boolean hasNext;
+    Long totalElements;
+    Integer totalPages;
+    PageTotalMode totalMode;
+}
@@ -0,0 +1,18 @@
+package com.example.bankcards.dto.response;
+
+import com.example.bankcards.dto.TransactionDto;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class TransactionPageResponse {
+    List<TransactionDto> content;
+    String nextCursor;
+}
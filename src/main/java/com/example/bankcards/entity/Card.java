@@ -25,11 +25,12 @@ import java.util.Set;
 @EntityListeners(AuditingEntityListener.class)
 public class Card {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cards_id_seq")
+    @SequenceGenerator(name = "cards_id_seq", sequenceName = "cards_id_seq", allocationSize = 50)
     private Long id;
 
-    @Column(name = "card_hash", nullable = false, unique = true)
-    private String cardHash;
+    @Column(name = "card_fingerprint", nullable = false, unique = true, length = 32)
+    private byte[] cardFingerprint;
 
     @Column(name = "last_four_digits", nullable = false, length = 19)
     private String lastFourDigits; // Формат: **** **** **** 1234
@@ -45,10 +46,22 @@ public class Card {
     @Enumerated(EnumType.STRING)
     private CardStatus status = CardStatus.ACTIVE;
 
+    /**
+     * Changed only by the conditional statements in {@code CardRepository}; a full-row save of a card
+     * loaded before a concurrent transfer would otherwise write its stale balance back.
+     */
     @Builder.Default
-    @Column(nullable = false, precision = 15, scale = 2)
+    @Column(nullable = false, precision = 15, scale = 2, updatable = false)
     private BigDecimal balance = BigDecimal.ZERO;
 
+    /**
+     * Number of the newest ledger entry of the card; {@code balance} is that entry's balance after.
+     * Not updatable for the same reason as {@code balance}: moving it backwards breaks the entry chain.
+     */
+    @Builder.Default
+    @Column(name = "last_entry_number", nullable = false, updatable = false)
+    private Long lastEntryNumber = 0L;
+
     @CreatedDate
     @Column(name = "created_at", columnDefinition = "DATE")
     private LocalDate createdAt;
@@ -0,0 +1,57 @@
+package com.example.bankcards.entity;
+
+import com.example.bankcards.enums.LedgerEntryType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One leg of a balance change. {@code entryNumber} numbers the entries of a card without gaps and
+ * {@code balanceAfter} is the card balance once the entry applied, so the newest entry is the balance.
+ */
+@Entity
+@Immutable
+@Table(name = "ledger_entries",
+        uniqueConstraints = @UniqueConstraint(name = "uk_ledger_entries_card_entry", columnNames = {"card_id", "entry_number"}))
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class LedgerEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_entries_id_seq")
+    @SequenceGenerator(name = "ledger_entries_id_seq", sequenceName = "ledger_entries_id_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "card_id", nullable = false)
+    private Card card;
+
+    @Column(name = "entry_number", nullable = false)
+    private Long entryNumber;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "transaction_id")
+    private Transaction transaction;
+
+    @Column(name = "entry_type", nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private LedgerEntryType type;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "balance_after", nullable = false, precision = 15, scale = 2)
+    private BigDecimal balanceAfter;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,10 @@
+package com.example.bankcards.enums;
+
+/**
+ * How a paged listing reports its total: {@code NONE} only says whether another page exists,
+ * {@code ESTIMATED} uses the planner's row estimate (or a briefly cached count when filtered) and
+ * {@code EXACT} counts on every request.
+ */
+public enum PageTotalMode {
+    NONE, ESTIMATED, EXACT
+}
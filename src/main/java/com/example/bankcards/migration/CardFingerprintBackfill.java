@@ -0,0 +1,119 @@
+package com.example.bankcards.migration;
+
+import com.example.bankcards.util.CardFingerprinter;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.SetupException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Base64;
+
+/**
+ * Fills {@code cards.card_fingerprint} from the legacy Base64 {@code card_hash}, keyset-paginated by id and
+ * committed per batch so the table is never locked for the whole rewrite. Rows whose hash is not a
+ * Base64 SHA-256 digest (seed data) are keyed over their raw bytes instead; they stay unique either way.
+ */
+public class CardFingerprintBackfill implements CustomTaskChange {
+
+    private static final int DIGEST_LENGTH = 32;
+
+    private String hmacKey;
+    private String batchSize = "1000";
+    private int updatedRows;
+
+    public void setHmacKey(String hmacKey) {
+        this.hmacKey = hmacKey;
+    }
+
+    public void setBatchSize(String batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        Mac mac = CardFingerprinter.newMac(hmacKey.getBytes(StandardCharsets.UTF_8));
+        int limit = Integer.parseInt(batchSize);
+        Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT id, card_hash FROM cards WHERE id > ? AND card_fingerprint IS NULL ORDER BY id LIMIT ?");
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE cards SET card_fingerprint = ? WHERE id = ?")) {
+            long lastId = 0;
+            while (true) {
+                select.setLong(1, lastId);
+                select.setInt(2, limit);
+                int batchRows = 0;
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        lastId = rows.getLong(1);
+                        update.setBytes(1, mac.doFinal(legacyDigest(rows.getString(2))));
+                        update.setLong(2, lastId);
+                        update.addBatch();
+                        batchRows++;
+                    }
+                }
+                if (batchRows == 0) {
+                    break;
+                }
+                update.executeBatch();
+                if (!connection.getAutoCommit()) {
+                    connection.commit();
+                }
+                updatedRows += batchRows;
+            }
+        } catch (SQLException e) {
+            throw new CustomChangeException("Could not backfill card fingerprints", e);
+        }
+    }
+
+    private static byte[] legacyDigest(String cardHash) {
+        try {
+            byte[] digest = Base64.getDecoder().decode(cardHash);
+            if (digest.length == DIGEST_LENGTH) {
+                return digest;
+            }
+        } catch (IllegalArgumentException e) {
+            // not a digest, fall through
+        }
+        return cardHash.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Backfilled card_fingerprint for " + updatedRows + " cards";
+    }
+
+    @Override
+    public void setUp() throws SetupException {
+        if (hmacKey == null || hmacKey.isBlank() || hmacKey.startsWith("${")) {
+            throw new SetupException("hmacKey must be set through the card.hash.salt changelog parameter");
+        }
+        try {
+            if (Integer.parseInt(batchSize) < 1) {
+                throw new SetupException("batchSize must be positive");
+            }
+        } catch (NumberFormatException e) {
+            throw new SetupException("batchSize must be a number", e);
+        }
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+    }
+
+    // Parameters are only bound right before setUp(), so they are checked there rather than here.
+    @Override
+    public ValidationErrors validate(Database database) {
+        return new ValidationErrors();
+    }
+}
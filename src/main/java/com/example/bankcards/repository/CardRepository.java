@@ -2,25 +2,96 @@ package com.example.bankcards.repository;
 
 
 import com.example.bankcards.entity.Card;
-import com.example.bankcards.entity.User;
 import com.example.bankcards.enums.CardStatus;
-import org.springframework.data.domain.Page;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CardRepository extends JpaRepository<Card,Long> {
 
-    boolean existsByCardHash(String attr0);
+    boolean existsByCardFingerprint(byte[] cardFingerprint);
 
-    List<Card> findAllByUser(User user);
+    @Query("SELECT c.cardFingerprint FROM Card c WHERE c.cardFingerprint IN :fingerprints")
+    List<byte[]> findExistingCardFingerprints(@Param("fingerprints") Collection<byte[]> fingerprints);
+
+    /**
+     * All stored fingerprints, fetched in batches of 1000 rows. Must be consumed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT c.cardFingerprint FROM Card c")
+    Stream<byte[]> streamAllCardFingerprints();
+
+    List<Card> findAllByUserId(Long userId);
 
     boolean existsByIdAndUserId(Long id, Long id1);
 
-    Page<Card> findByUserIdAndStatus(Long userId, CardStatus status, Pageable attr0);
+    List<Card> findAllByIdInAndUserId(Collection<Long> ids, Long userId);
+
+    Slice<Card> findSliceByUserIdAndStatus(Long userId, CardStatus status, Pageable pageable);
+
+    Slice<Card> findSliceByUserId(Long userId, Pageable pageable);
+
+    Slice<Card> findSliceByStatus(CardStatus status, Pageable pageable);
+
+    Slice<Card> findSliceBy(Pageable pageable);
+
+    long countByUserIdAndStatus(Long userId, CardStatus status);
+
+    long countByUserId(Long userId);
+
+    long countByStatus(CardStatus status);
+
+    /**
+     * Row count as last estimated by {@code ANALYZE}/autovacuum; {@code -1} if the table was never analyzed.
+     */
+    @Query(value = "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = CAST('cards' AS regclass)", nativeQuery = true)
+    long estimateCount();
+
+    /**
+     * Locks the given cards with {@code SELECT ... FOR UPDATE}. Rows are locked in ascending id order,
+     * so two transfers touching the same pair of cards in opposite directions cannot deadlock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Card c WHERE c.id IN :ids ORDER BY c.id ASC")
+    List<Card> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Balance and ledger entry number of a card right after {@link #debit} or {@link #credit} changed it.
+     */
+    interface BalanceChange {
+        BigDecimal getBalance();
+
+        Long getEntryNumber();
+    }
 
-    Page<Card> findByUserId(Long userId, Pageable attr0);
+    /**
+     * Atomically withdraws {@code amount} from an active card and reserves the number of its ledger entry.
+     * Empty means the card is missing, not active or does not hold enough money.
+     */
+    @Query(value = "UPDATE cards SET balance = balance - :amount, last_entry_number = last_entry_number + 1 " +
+            "WHERE id = :id AND balance >= :amount AND status = 'ACTIVE' " +
+            "RETURNING balance, last_entry_number AS \"entryNumber\"", nativeQuery = true)
+    Optional<BalanceChange> debit(@Param("id") Long id, @Param("amount") BigDecimal amount);
 
-    Page<Card> findByStatus(CardStatus status, Pageable attr0);
+    /**
+     * Atomically deposits {@code amount} to an active card and reserves the number of its ledger entry.
+     * Empty means the card is missing or not active.
+     */
+    @Query(value = "UPDATE cards SET balance = balance + :amount, last_entry_number = last_entry_number + 1 " +
+            "WHERE id = :id AND status = 'ACTIVE' " +
+            "RETURNING balance, last_entry_number AS \"entryNumber\"", nativeQuery = true)
+    Optional<BalanceChange> credit(@Param("id") Long id, @Param("amount") BigDecimal amount);
 }
@@ -0,0 +1,42 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByOwnerAndIdempotencyKey(String owner, String idempotencyKey);
+
+    /**
+     * Inserts the key without a response, or takes over an expired record of it. Returns 0 when a live
+     * record exists; if another transaction has claimed the key and not finished yet, this waits for it first.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (owner, idempotency_key, request_hash, created_at, expires_at) " +
+            "VALUES (:owner, :idempotencyKey, :requestHash, :now, :expiresAt) " +
+            "ON CONFLICT (owner, idempotency_key) DO UPDATE SET request_hash = EXCLUDED.request_hash, " +
+            "response_message = NULL, created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at " +
+            "WHERE idempotency_keys.expires_at <= EXCLUDED.created_at", nativeQuery = true)
+    int claim(@Param("owner") String owner,
+              @Param("idempotencyKey") String idempotencyKey,
+              @Param("requestHash") byte[] requestHash,
+              @Param("now") LocalDateTime now,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.responseMessage = :responseMessage " +
+            "WHERE r.owner = :owner AND r.idempotencyKey = :idempotencyKey")
+    int complete(@Param("owner") String owner,
+                 @Param("idempotencyKey") String idempotencyKey,
+                 @Param("responseMessage") String responseMessage);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
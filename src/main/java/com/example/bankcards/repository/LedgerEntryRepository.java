@@ -0,0 +1,79 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.LedgerEntryDto;
+import com.example.bankcards.entity.LedgerEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    /**
+     * Entries of a card numbered below {@code before}, newest first: one range scan of
+     * {@code uk_ledger_entries_card_entry}.
+     */
+    @Query("SELECT new com.example.bankcards.dto.LedgerEntryDto(" +
+            "e.entryNumber, e.type, e.amount, e.balanceAfter, t.transactionId, e.createdAt) " +
+            "FROM LedgerEntry e LEFT JOIN e.transaction t " +
+            "WHERE e.card.id = :cardId AND e.entryNumber < :before " +
+            "ORDER BY e.entryNumber DESC")
+    List<LedgerEntryDto> findByCardIdBefore(@Param("cardId") Long cardId,
+                                            @Param("before") Long before,
+                                            Pageable pageable);
+
+    interface BalanceMismatch {
+        Long getCardId();
+
+        BigDecimal getCachedBalance();
+
+        BigDecimal getLedgerBalance();
+
+        Long getCachedEntryNumber();
+
+        Long getLedgerEntryNumber();
+    }
+
+    /**
+     * Cards whose cached balance or entry number differ from their newest ledger entry, in id order.
+     */
+    @Query(value = "SELECT c.id AS \"cardId\", c.balance AS \"cachedBalance\", " +
+            "COALESCE(e.balance_after, 0) AS \"ledgerBalance\", " +
+            "c.last_entry_number AS \"cachedEntryNumber\", COALESCE(e.entry_number, 0) AS \"ledgerEntryNumber\" " +
+            "FROM cards c LEFT JOIN LATERAL (" +
+            "SELECT l.balance_after, l.entry_number FROM ledger_entries l " +
+            "WHERE l.card_id = c.id ORDER BY l.entry_number DESC LIMIT 1) e ON TRUE " +
+            "WHERE c.balance <> COALESCE(e.balance_after, 0) " +
+            "OR c.last_entry_number <> COALESCE(e.entry_number, 0) " +
+            "ORDER BY c.id", nativeQuery = true)
+    List<BalanceMismatch> findBalanceMismatches(Pageable pageable);
+
+    /**
+     * Entries that do not follow from the previous entry of their card: a gap in the numbering, or a balance
+     * after other than the previous one plus a credit (or opening) amount, minus a debit amount.
+     */
+    @Query(value = "SELECT count(*) FROM (" +
+            "SELECT l.entry_type, l.amount, l.balance_after, l.entry_number, " +
+            "lag(l.balance_after) OVER card_entries AS previous_balance, " +
+            "lag(l.entry_number) OVER card_entries AS previous_number " +
+            "FROM ledger_entries l " +
+            "WINDOW card_entries AS (PARTITION BY l.card_id ORDER BY l.entry_number)) chain " +
+            "WHERE chain.entry_number <> COALESCE(chain.previous_number, 0) + 1 " +
+            "OR chain.balance_after <> COALESCE(chain.previous_balance, 0) " +
+            "+ CASE chain.entry_type WHEN 'DEBIT' THEN -chain.amount ELSE chain.amount END", nativeQuery = true)
+    long countBrokenChainEntries();
+
+    /**
+     * Transfers whose entries are not exactly one debit and one credit of the same amount.
+     */
+    @Query(value = "SELECT count(*) FROM (" +
+            "SELECT l.transaction_id FROM ledger_entries l WHERE l.transaction_id IS NOT NULL " +
+            "GROUP BY l.transaction_id " +
+            "HAVING count(*) FILTER (WHERE l.entry_type = 'DEBIT') <> 1 " +
+            "OR count(*) FILTER (WHERE l.entry_type = 'CREDIT') <> 1 " +
+            "OR sum(CASE l.entry_type WHEN 'DEBIT' THEN l.amount ELSE -l.amount END) <> 0) unbalanced", nativeQuery = true)
+    long countUnbalancedTransactions();
+}
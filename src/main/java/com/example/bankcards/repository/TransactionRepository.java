@@ -1,14 +1,74 @@
 package com.example.bankcards.repository;
 
-import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.Transaction;
+import com.example.bankcards.enums.TransactionStatus;
+import com.example.bankcards.enums.TransactionType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
 
 public interface TransactionRepository  extends JpaRepository<Transaction, Long> {
-    @Query("SELECT t FROM Transaction t WHERE t.toCard.id = :cardId OR t.fromCard.id = :cardId")
-    List<Transaction> findAllByCardId(@Param("cardId") Long cardId);
+
+    /** Flat row of the card history, with both card numbers already masked. */
+    interface TransactionRow {
+        Long getId();
+
+        UUID getTransactionId();
+
+        BigDecimal getAmount();
+
+        String getDescription();
+
+        TransactionStatus getStatus();
+
+        TransactionType getType();
+
+        LocalDateTime getCreatedAt();
+
+        Long getFromCardId();
+
+        String getFromCardMaskedNumber();
+
+        Long getToCardId();
+
+        String getToCardMaskedNumber();
+    }
+
+    // The history of a card is the merge of two ordered range scans, one over its outgoing transfers
+    // (idx_transactions_from_card_history) and one over its incoming ones (idx_transactions_to_card_history),
+    // each stopped after :limit rows, so a page costs the same however long the history is. A transfer to
+    // the same card is taken from the outgoing side only.
+    String HISTORY_SELECT = "SELECT t.id, t.transaction_id AS \"transactionId\", t.amount, t.description, " +
+            "t.status, t.type, CAST(t.created_at AS timestamp) AS \"createdAt\", " +
+            "fc.id AS \"fromCardId\", '**** **** **** ' || fc.last_four_digits AS \"fromCardMaskedNumber\", " +
+            "tc.id AS \"toCardId\", '**** **** **** ' || tc.last_four_digits AS \"toCardMaskedNumber\" FROM (";
+
+    String HISTORY_ORDER = " ORDER BY created_at DESC, id DESC LIMIT :limit)";
+
+    String HISTORY_JOIN = ") t LEFT JOIN cards fc ON fc.id = t.from_card_id JOIN cards tc ON tc.id = t.to_card_id " +
+            "ORDER BY t.created_at DESC, t.id DESC LIMIT :limit";
+
+    @Query(value = HISTORY_SELECT +
+            "(SELECT * FROM transactions WHERE from_card_id = :cardId" + HISTORY_ORDER +
+            " UNION ALL " +
+            "(SELECT * FROM transactions WHERE to_card_id = :cardId AND from_card_id IS DISTINCT FROM :cardId" +
+            HISTORY_ORDER + HISTORY_JOIN, nativeQuery = true)
+    List<TransactionRow> findLatestByCardId(@Param("cardId") Long cardId, @Param("limit") int limit);
+
+    @Query(value = HISTORY_SELECT +
+            "(SELECT * FROM transactions WHERE from_card_id = :cardId " +
+            "AND (created_at, id) < (:createdAt, :id)" + HISTORY_ORDER +
+            " UNION ALL " +
+            "(SELECT * FROM transactions WHERE to_card_id = :cardId AND from_card_id IS DISTINCT FROM :cardId " +
+            "AND (created_at, id) < (:createdAt, :id)" + HISTORY_ORDER + HISTORY_JOIN, nativeQuery = true)
+    List<TransactionRow> findByCardIdBefore(@Param("cardId") Long cardId,
+                                            @Param("createdAt") LocalDate createdAt,
+                                            @Param("id") Long id,
+                                            @Param("limit") int limit);
 }
@@ -1,7 +1,10 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.Optional;
 
@@ -12,4 +15,12 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String email);
 
+    Slice<User> findSliceBy(Pageable pageable);
+
+    /**
+     * Row count as last estimated by {@code ANALYZE}/autovacuum; {@code -1} if the table was never analyzed.
+     */
+    @Query(value = "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = CAST('users' AS regclass)", nativeQuery = true)
+    long estimateCount();
+
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.example.bankcards.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Authentication meters: {@code bank.auth.filter{outcome}} for bearer tokens checked by
+ * {@link JwtAuthenticationFilter} and {@code bank.auth.login{outcome}} for password logins.
+ */
+@Component
+public class AuthMetrics {
+
+    public enum FilterOutcome {
+        AUTHENTICATED, REJECTED, ERROR
+    }
+
+    public enum LoginOutcome {
+        SUCCESS, UNKNOWN_USER, DISABLED, BAD_CREDENTIALS, ERROR
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Map<FilterOutcome, Timer> filterTimers = new EnumMap<>(FilterOutcome.class);
+    private final Map<LoginOutcome, Timer> loginTimers = new EnumMap<>(LoginOutcome.class);
+
+    public AuthMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (FilterOutcome outcome : FilterOutcome.values()) {
+            filterTimers.put(outcome, Timer.builder("bank.auth.filter")
+                    .description("Bearer token authentication, excluding the rest of the request")
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        for (LoginOutcome outcome : LoginOutcome.values()) {
+            loginTimers.put(outcome, Timer.builder("bank.auth.login")
+                    .description("Password logins")
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+    }
+
+    public Timer.Sample startTimer() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void recordFilter(Timer.Sample sample, FilterOutcome outcome) {
+        sample.stop(filterTimers.get(outcome));
+    }
+
+    public void recordLogin(Timer.Sample sample, LoginOutcome outcome) {
+        sample.stop(loginTimers.get(outcome));
+    }
+}
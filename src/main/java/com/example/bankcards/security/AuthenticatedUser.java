@@ -0,0 +1,75 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.enums.UserRole;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+
+/**
+ * Security principal that carries the resolved user id and role, so services can work with ids
+ * instead of looking the user up again on every call. Immutable, hence safe to share from caches.
+ */
+@Getter
+public class AuthenticatedUser implements UserDetails {
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final Long id;
+    private final String username;
+    private final String password;
+    private final UserRole role;
+    private final boolean enabled;
+    private final List<GrantedAuthority> authorities;
+
+    public AuthenticatedUser(Long id, String username, String password, UserRole role, boolean enabled) {
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.role = role;
+        this.enabled = enabled;
+        this.authorities = List.of(new SimpleGrantedAuthority(ROLE_PREFIX + role.name()));
+    }
+
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getPassword(),
+                user.getRole(), Boolean.TRUE.equals(user.getEnabled()));
+    }
+
+    public static UserRole roleFromAuthority(String authority) {
+        if (authority == null || !authority.startsWith(ROLE_PREFIX)) {
+            return null;
+        }
+        try {
+            return UserRole.valueOf(authority.substring(ROLE_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public AuthenticatedUser withoutPassword() {
+        return password == null ? this : new AuthenticatedUser(id, username, null, role, enabled);
+    }
+
+    public boolean isAdmin() {
+        return role == UserRole.ADMIN;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+}
@@ -1,15 +1,19 @@
 package com.example.bankcards.security;
 
 
+import com.example.bankcards.enums.UserRole;
+import com.example.bankcards.security.AuthMetrics.FilterOutcome;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -17,6 +21,9 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 
 
 @Component
@@ -26,6 +33,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider jwtTokenProvider;
     private final UserDetailsServiceImpl userDetailsService;
+    private final TokenDenylist tokenDenylist;
+    private final AuthMetrics authMetrics;
+
+    @Value("${app.jwt.stateless-auth:false}")
+    private boolean statelessAuth;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -42,21 +54,33 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String token = getJwtFromRequest(request);
 
         if (StringUtils.hasText(token)) {
+            Timer.Sample sample = authMetrics.startTimer();
+            FilterOutcome outcome = FilterOutcome.REJECTED;
             try {
-                if (jwtTokenProvider.validateToken(token) && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    String username = jwtTokenProvider.getUsernameFromToken(token);
-
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                            userDetails, null, userDetails.getAuthorities());
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                Optional<Claims> claims = jwtTokenProvider.parseClaims(token);
+                if (claims.isPresent() && SecurityContextHolder.getContext().getAuthentication() == null) {
+                    String username = claims.get().getSubject();
+
+                    AuthenticatedUser principal = statelessAuth
+                            ? principalFromClaims(claims.get())
+                            : userDetailsService.loadAuthenticatedUser(username).withoutPassword();
+
+                    if (principal != null && principal.isEnabled()
+                            && !tokenDenylist.isRevoked(username, claims.get().getIssuedAt())) {
+                        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                                principal, null, principal.getAuthorities());
+                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+                        SecurityContextHolder.getContext().setAuthentication(authentication);
+                        outcome = FilterOutcome.AUTHENTICATED;
+                    }
                 }
             } catch (Exception e) {
                 log.error("Could not set user authentication in security context", e);
                 SecurityContextHolder.clearContext();
+                outcome = FilterOutcome.ERROR;
+            } finally {
+                authMetrics.recordFilter(sample, outcome);
             }
         }
 
@@ -64,6 +88,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     }
 
 
+    private AuthenticatedUser principalFromClaims(Claims claims) {
+        Long userId = claims.get(JwtTokenProvider.USER_ID_CLAIM, Long.class);
+        List<?> roles = claims.get(JwtTokenProvider.ROLES_CLAIM, List.class);
+        Boolean enabled = claims.get(JwtTokenProvider.ENABLED_CLAIM, Boolean.class);
+
+        UserRole role = roles == null ? null : roles.stream()
+                .map(authority -> AuthenticatedUser.roleFromAuthority(String.valueOf(authority)))
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(null);
+
+        // Tokens issued before the id claim existed cannot be trusted without a lookup; the client logs in again.
+        if (userId == null || role == null) {
+            return null;
+        }
+        return new AuthenticatedUser(userId, claims.getSubject(), null, role, Boolean.TRUE.equals(enabled));
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -1,57 +1,107 @@
 package com.example.bankcards.security;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import io.jsonwebtoken.*;
 
 
 import java.security.Key;
+import java.time.Instant;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 
 @Component
 public class JwtTokenProvider {
 
+    public static final String ROLES_CLAIM = "roles";
+    public static final String ENABLED_CLAIM = "enabled";
+    public static final String USER_ID_CLAIM = "uid";
+
     @Value("${app.jwtSecret}")
     private String jwtSecret;
 
     @Value("${app.jwtExpirationMs}")
     private int jwtExpirationMs;
 
+    @Value("${app.jwt.stateless-auth:false}")
+    private boolean statelessAuth;
+
+    @Value("${app.jwt.stateless-expiration-ms:900000}")
+    private long statelessExpirationMs;
+
+    private Key key;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    public void init() {
+        this.key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
+    }
+
+    /**
+     * How long a token stays valid. Tokens trusted from their claims alone are capped at
+     * {@code app.jwt.stateless-expiration-ms}, so a block reaches them within that time.
+     */
+    public long getTokenLifetimeMs() {
+        return statelessAuth ? Math.min(jwtExpirationMs, statelessExpirationMs) : jwtExpirationMs;
+    }
+
     public String generateJwtToken(Authentication authentication) {
+        return generateJwtToken(authentication, Instant.now());
+    }
+
+    public String generateJwtToken(Authentication authentication, Instant issuedAt) {
         String username = authentication.getName();
-        Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
+        Date now = Date.from(issuedAt);
+        Date expiryDate = new Date(now.getTime() + getTokenLifetimeMs());
+
+        List<String> roles = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+        boolean enabled = !(authentication.getPrincipal() instanceof UserDetails userDetails) || userDetails.isEnabled();
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(username)
+                .claim(ROLES_CLAIM, roles)
+                .claim(ENABLED_CLAIM, enabled);
+        if (authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            builder.claim(USER_ID_CLAIM, user.getId());
+        }
+
+        return builder
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    private Key key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    /**
+     * Verifies the signature and expiry of the token and returns its claims in a single parse,
+     * or an empty result when the token is not valid.
+     */
+    public Optional<Claims> parseClaims(String token) {
+        try {
+            return Optional.of(jwtParser.parseClaimsJws(token).getBody());
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
     }
 
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getSubject();
+        return jwtParser.parseClaimsJws(token)
+                .getBody()
+                .getSubject();
     }
 
     public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parseClaimsJws(token);
-            return true;
-        }catch (Exception e){
-            return false;
-        }
+        return parseClaims(token).isPresent();
     }
 }
-
@@ -1,9 +1,13 @@
 package com.example.bankcards.security;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -45,6 +49,32 @@ public class SecurityConfig {
         return authenticationConfiguration.getAuthenticationManager();
     }
 
+    /**
+     * Actuator on its own {@code management.server.port}, which is kept off the public network (see
+     * {@code docs/monitoring.md}): Prometheus and health checks reach it without a token, and nothing but actuator
+     * is served there. Without a separate port the chain matches nothing and actuator falls under
+     * {@link #filterChain}.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain managementFilterChain(HttpSecurity http, Environment environment) throws Exception {
+        int managementPort = ManagementPortType.get(environment) == ManagementPortType.DIFFERENT
+                ? environment.getProperty("management.server.port", Integer.class, 0)
+                : -1;
+        http
+                .securityMatcher(request -> managementPort > 0 && request.getLocalPort() == managementPort)
+                .csrf(AbstractHttpConfigurer::disable)
+                .sessionManagement(session -> session
+                        .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                )
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers("/actuator/**").permitAll()
+                        .anyRequest().denyAll()
+                );
+
+        return http.build();
+    }
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
@@ -57,6 +87,8 @@ public class SecurityConfig {
 
 
                 .authorizeHttpRequests(auth -> auth
+                        // Streamed responses finish on an async dispatch that carries no token of its own.
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(
                                 "/api/auth/**",
 
@@ -68,9 +100,16 @@ public class SecurityConfig {
                                 "/configuration/ui",
                                 "/configuration/security",
                                 "/webjars/**",
-                                "/error"
+                                "/error",
+
+                                "/actuator/health",
+                                "/actuator/health/**"
                         ).permitAll()
 
+                        // Metrics name users' cards and traffic. Scrapers use the management port; on the
+                        // public port only an admin may read them.
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
+
                         .anyRequest().authenticated()
                 )
 
@@ -91,7 +130,7 @@ public class SecurityConfig {
 
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
 
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "Cache-Control"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "Cache-Control", "Idempotency-Key"));
 
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
@@ -0,0 +1,56 @@
+package com.example.bankcards.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * Revokes every token issued to a user up to the second of revocation, the precision of a token's {@code iat}.
+ * An entry only has to outlive the tokens it covers, so it expires after one token lifetime, which
+ * {@link JwtTokenProvider#getTokenLifetimeMs()} keeps short when tokens are trusted without a lookup.
+ * <p>
+ * The list lives in the memory of one instance. With several instances and {@code app.jwt.stateless-auth}, a
+ * block takes effect only on the instance that handled it; on the others the blocked user's tokens stay valid
+ * until they expire, so the token lifetime bounds that window as well.
+ */
+@Component
+public class TokenDenylist {
+
+    private final Cache<String, Long> revokedAtSecond;
+
+    public TokenDenylist(@Value("#{@jwtTokenProvider.tokenLifetimeMs}") long tokenLifetimeMs) {
+        this.revokedAtSecond = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(tokenLifetimeMs).plusSeconds(1))
+                .build();
+    }
+
+    public void revoke(String username) {
+        revokedAtSecond.put(username, Instant.now().getEpochSecond());
+    }
+
+    public boolean isRevoked(String username, Date issuedAt) {
+        Long revoked = revokedAtSecond.getIfPresent(username);
+        if (revoked == null) {
+            return false;
+        }
+        return issuedAt == null || issuedAt.toInstant().getEpochSecond() <= revoked;
+    }
+
+    /**
+     * When a new token for the user should say it was issued. A token issued in the same second as a revocation
+     * would look revoked, so it is dated to the following second instead.
+     */
+    public Instant issueTime(String username) {
+        Instant now = Instant.now();
+        Long revoked = revokedAtSecond.getIfPresent(username);
+        if (revoked != null && now.getEpochSecond() <= revoked) {
+            return Instant.ofEpochSecond(revoked + 1);
+        }
+        return now;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Bounded front cache for the per-request {@link AuthenticatedUser} lookup by username in the
+ * authentication filter. Admin changes evict eagerly, the TTL bounds staleness for anything else.
+ */
+@Component
+public class UserCache implements MeterBinder {
+
+    private final Cache<String, AuthenticatedUser> users;
+
+    public UserCache(@Value("${app.user-cache.max-size:10000}") long maxSize,
+                     @Value("${app.user-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    public AuthenticatedUser getUser(String username, Function<String, AuthenticatedUser> loader) {
+        return users.get(username, loader);
+    }
+
+    public void evict(User user) {
+        users.invalidate(user.getUsername());
+    }
+
+    public CacheStats stats() {
+        return users.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, users, "users");
+    }
+}
@@ -1,6 +1,5 @@
 package com.example.bankcards.security;
 
-import com.example.bankcards.entity.User;
 import com.example.bankcards.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -13,17 +12,24 @@ import org.springframework.stereotype.Service;
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final UserCache userCache;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        return loadAuthenticatedUser(username);
+    }
 
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getUsername())
-                .password(user.getPassword())
-                .disabled(!user.getEnabled())
-                .roles(user.getRole().name())
-                .build();
+    public AuthenticatedUser loadAuthenticatedUser(String username) throws UsernameNotFoundException {
+        return userCache.getUser(username, this::loadFromDatabase);
+    }
+
+    /**
+     * Runs outside any transaction, so it reads the primary even with replicas configured: a lagging replica
+     * could still return a user blocked a moment ago, and the cache would keep that for its TTL.
+     */
+    private AuthenticatedUser loadFromDatabase(String username) {
+        return userRepository.findByUsername(username)
+                .map(AuthenticatedUser::from)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
     }
-}
\ No newline at end of file
+}
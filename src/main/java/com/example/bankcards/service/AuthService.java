@@ -10,7 +10,11 @@ import com.example.bankcards.dto.response.UserDetailResponse;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.UserAlreadyExistsException;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.AuthMetrics;
+import com.example.bankcards.security.AuthMetrics.LoginOutcome;
 import com.example.bankcards.security.JwtTokenProvider;
+import com.example.bankcards.security.TokenDenylist;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -22,6 +26,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
@@ -31,7 +36,10 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtTokenProvider jwtTokenProvider;
+    private final TokenDenylist tokenDenylist;
+    private final AuthMetrics authMetrics;
 
+    @Transactional
     public RegisterResponse register(RegisterRequest request) {
         String username = request.getUsername();
         String email = request.getEmail();
@@ -61,38 +69,50 @@ public class AuthService {
         String username = request.getUsername();
         String password = request.getPassword();
 
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> {
-                    log.warn("Login attempt with non-existent email: {}", username);
-                    return new UsernameNotFoundException("User not found");
-                });
-
-        if (!Boolean.TRUE.equals(user.getEnabled())) {
-            log.warn("Login attempt for disabled user: {}", username);
-            throw new DisabledException("User account is disabled");
-        }
-
-        if (!passwordEncoder.matches(password, user.getPassword())) {
-            log.warn("Failed login attempt: invalid password for email={}", username);
-            throw new BadCredentialsException("Invalid email or password");
+        Timer.Sample sample = authMetrics.startTimer();
+        LoginOutcome outcome = LoginOutcome.ERROR;
+        try {
+            User user = userRepository.findByUsername(username)
+                    .orElse(null);
+            if (user == null) {
+                log.warn("Login attempt with non-existent email: {}", username);
+                outcome = LoginOutcome.UNKNOWN_USER;
+                throw new UsernameNotFoundException("User not found");
+            }
+
+            if (!Boolean.TRUE.equals(user.getEnabled())) {
+                log.warn("Login attempt for disabled user: {}", username);
+                outcome = LoginOutcome.DISABLED;
+                throw new DisabledException("User account is disabled");
+            }
+
+            if (!passwordEncoder.matches(password, user.getPassword())) {
+                log.warn("Failed login attempt: invalid password for email={}", username);
+                outcome = LoginOutcome.BAD_CREDENTIALS;
+                throw new BadCredentialsException("Invalid email or password");
+            }
+
+
+            Authentication authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                            username, password
+                    )
+            );
+
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+
+            String token = jwtTokenProvider.generateJwtToken(authentication,
+                    tokenDenylist.issueTime(authentication.getName()));
+
+            outcome = LoginOutcome.SUCCESS;
+            return LoginResponse.builder()
+                    .accessToken(token)
+                    .tokenType("Bearer")
+                    .user(new UserDetailResponse(user))
+                    .build();
+        } finally {
+            authMetrics.recordLogin(sample, outcome);
         }
-
-
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        username, password
-                )
-        );
-
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-
-        String token = jwtTokenProvider.generateJwtToken(authentication);
-
-        return LoginResponse.builder()
-                .accessToken(token)
-                .tokenType("Bearer")
-                .user(new UserDetailResponse(user))
-                .build();
     }
 }
 
@@ -0,0 +1,160 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.repository.CardRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter over {@code cards.card_fingerprint}, so a card number that was never stored skips the
+ * {@code existsByCardFingerprint} probe. A negative answer is definite; a positive one still goes to the
+ * database, and the unique constraint stays the final arbiter for anything the filter has not seen yet
+ * (cards inserted by another instance, or while the filter is loading).
+ * <p>
+ * The filter is loaded once the application is ready and updated on every insert. Deleted cards cannot
+ * be removed, they only raise the false-positive rate, which is published as {@code bank.card.filter.fpp}
+ * alongside the memory footprint.
+ * Fingerprints are HMAC output, so their first 16 bytes serve directly as the two base hashes.
+ */
+@Component
+@Slf4j
+public class CardFingerprintFilter implements MeterBinder {
+
+    private final CardRepository cardRepository;
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashFunctions;
+    private final AtomicLong setBits = new AtomicLong();
+    private final AtomicLong definiteMisses = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+    private volatile boolean ready;
+
+    public CardFingerprintFilter(CardRepository cardRepository,
+                                 @Value("${app.card-filter.expected-insertions:1000000}") long expectedInsertions,
+                                 @Value("${app.card-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.cardRepository = cardRepository;
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.words = new AtomicLongArray(Math.toIntExact(Math.max(1, (bits + 63) / 64)));
+        this.bitSize = words.length() * 64L;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        long started = System.nanoTime();
+        AtomicLong loaded = new AtomicLong();
+        try (Stream<byte[]> fingerprints = cardRepository.streamAllCardFingerprints()) {
+            fingerprints.forEach(fingerprint -> {
+                add(fingerprint);
+                loaded.incrementAndGet();
+            });
+        }
+        ready = true;
+        log.info("Card fingerprint filter loaded: cards={}, bits={}, hashFunctions={}, memoryBytes={}, expectedFpp={}, tookMs={}",
+                loaded.get(), bitSize, hashFunctions, getMemoryBytes(), getExpectedFalsePositiveRate(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * {@code false} means the fingerprint is definitely not stored. Until the filter is loaded every
+     * fingerprint might be.
+     */
+    public boolean mightContain(byte[] fingerprint) {
+        if (!ready) {
+            return true;
+        }
+        long hash1 = ByteBuffer.wrap(fingerprint).getLong(0);
+        long hash2 = ByteBuffer.wrap(fingerprint).getLong(8);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitSize);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                definiteMisses.incrementAndGet();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void add(byte[] fingerprint) {
+        long hash1 = ByteBuffer.wrap(fingerprint).getLong(0);
+        long hash2 = ByteBuffer.wrap(fingerprint).getLong(8);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitSize);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            long current;
+            do {
+                current = words.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!words.compareAndSet(word, current, current | mask));
+            if ((current & mask) == 0) {
+                setBits.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Called when {@link #mightContain} answered {@code true} but the database had no such card.
+     */
+    public void recordFalsePositives(long count) {
+        falsePositives.addAndGet(count);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long getMemoryBytes() {
+        return words.length() * (long) Long.BYTES;
+    }
+
+    /**
+     * False-positive rate implied by the current bit occupancy, {@code (setBits / bitSize) ^ k}.
+     */
+    public double getExpectedFalsePositiveRate() {
+        return Math.pow((double) setBits.get() / bitSize, hashFunctions);
+    }
+
+    /**
+     * Share of absent fingerprints the filter failed to rule out, as reported by the callers.
+     */
+    public double getObservedFalsePositiveRate() {
+        long positives = falsePositives.get();
+        long negatives = positives + definiteMisses.get();
+        return negatives == 0 ? 0 : (double) positives / negatives;
+    }
+
+    public long getApproximateCount() {
+        return Math.round(-(double) bitSize / hashFunctions * Math.log1p(-(double) setBits.get() / bitSize));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("bank.card.filter.memory", this, CardFingerprintFilter::getMemoryBytes)
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        Gauge.builder("bank.card.filter.fpp", this, CardFingerprintFilter::getExpectedFalsePositiveRate)
+                .tag("source", "expected")
+                .register(registry);
+        Gauge.builder("bank.card.filter.fpp", this, CardFingerprintFilter::getObservedFalsePositiveRate)
+                .tag("source", "observed")
+                .register(registry);
+        Gauge.builder("bank.card.filter.size", this, CardFingerprintFilter::getApproximateCount)
+                .register(registry);
+    }
+}
@@ -0,0 +1,395 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.ReadYourWritesTracker;
+import com.example.bankcards.dto.request.CreateCardRequest;
+import com.example.bankcards.dto.response.CardImportResult;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.enums.CardImportStatus;
+import com.example.bankcards.exception.InvalidDataException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.AuthenticatedUser;
+import com.example.bankcards.util.CardFingerprinter;
+import com.example.bankcards.util.CardValidator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.crypto.SecretKey;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk card import from an NDJSON stream: one {@link CreateCardRequest} per line, optionally preceded by a
+ * {@code {"sessionKey": "..."}} header line, in which case card numbers are AES-GCM payloads under that
+ * session key (see {@link RsaService#unwrapSessionKey(String)}).
+ * <p>
+ * Lines are read and answered in chunks, so neither the request nor the report is held in memory.
+ * Decryption and hashing of a chunk run on a bounded pool. Fingerprints the {@link CardFingerprintFilter}
+ * cannot rule out are checked with one {@code card_fingerprint IN (...)} query, and new cards are inserted
+ * with a batched {@code saveAll}.
+ */
+@Service
+@Slf4j
+public class CardImportService {
+
+    private static final String SESSION_KEY_FIELD = "sessionKey";
+
+    private final CardRepository cardRepository;
+    private final UserRepository userRepository;
+    private final RsaService rsaService;
+    private final CardValidator cardValidator;
+    private final CardFingerprinter cardFingerprinter;
+    private final CardFingerprintFilter cardFingerprintFilter;
+    private final CardMetrics cardMetrics;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final ExecutorService workers;
+    private final int chunkSize;
+    private final int maxLines;
+
+    public CardImportService(CardRepository cardRepository,
+                             UserRepository userRepository,
+                             RsaService rsaService,
+                             CardValidator cardValidator,
+                             CardFingerprinter cardFingerprinter,
+                             CardFingerprintFilter cardFingerprintFilter,
+                             CardMetrics cardMetrics,
+                             ObjectMapper objectMapper,
+                             Validator validator,
+                             PlatformTransactionManager transactionManager,
+                             ReadYourWritesTracker readYourWritesTracker,
+                             @Value("${app.card-import.parallelism:0}") int parallelism,
+                             @Value("${app.card-import.chunk-size:500}") int chunkSize,
+                             @Value("${app.card-import.max-lines:100000}") int maxLines) {
+        this.cardRepository = cardRepository;
+        this.userRepository = userRepository;
+        this.rsaService = rsaService;
+        this.cardValidator = cardValidator;
+        this.cardFingerprinter = cardFingerprinter;
+        this.cardFingerprintFilter = cardFingerprintFilter;
+        this.cardMetrics = cardMetrics;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.chunkSize = chunkSize;
+        this.maxLines = maxLines;
+
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "card-import-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    public StreamingResponseBody importCards(AuthenticatedUser currentUser, InputStream body) {
+        if (currentUser == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Нужно войти в систему");
+        }
+        Long userId = currentUser.getId();
+        return output -> importCards(userId, body, output);
+    }
+
+    void importCards(Long userId, InputStream body, OutputStream output) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        ImportProgress progress = new ImportProgress(userId);
+        List<ImportLine> chunk = new ArrayList<>(chunkSize);
+
+        String line;
+        int lineNumber = 0;
+        boolean firstLine = true;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (lineNumber > maxLines) {
+                write(output, failed(lineNumber, "Import is limited to " + maxLines + " lines"));
+                break;
+            }
+            if (firstLine) {
+                firstLine = false;
+                JsonNode header = readHeader(line);
+                if (header != null) {
+                    try {
+                        progress.sessionKey = rsaService.unwrapSessionKey(header.get(SESSION_KEY_FIELD).asText());
+                        continue;
+                    } catch (InvalidDataException e) {
+                        write(output, failed(lineNumber, e.getMessage()));
+                        break;
+                    }
+                }
+            }
+
+            chunk.add(new ImportLine(lineNumber, line));
+            if (chunk.size() == chunkSize) {
+                processChunk(chunk, progress, output);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            processChunk(chunk, progress, output);
+        }
+
+        log.info("Card import finished: userId={}, created={}, duplicates={}, failed={}",
+                userId, progress.created, progress.duplicates, progress.failed);
+    }
+
+    private void processChunk(List<ImportLine> chunk, ImportProgress progress, OutputStream output) throws IOException {
+        SecretKey sessionKey = progress.sessionKey;
+        List<Future<PreparedCard>> futures = new ArrayList<>(chunk.size());
+        for (ImportLine importLine : chunk) {
+            futures.add(workers.submit(() -> prepare(importLine, sessionKey)));
+        }
+
+        List<PreparedCard> prepared = new ArrayList<>(chunk.size());
+        for (Future<PreparedCard> future : futures) {
+            prepared.add(await(future));
+        }
+
+        List<byte[]> fingerprints = new ArrayList<>();
+        for (PreparedCard card : prepared) {
+            if (card.error() == null && cardFingerprintFilter.mightContain(card.cardFingerprint())) {
+                fingerprints.add(card.cardFingerprint());
+            }
+        }
+        Set<ByteBuffer> existing = new HashSet<>();
+        if (!fingerprints.isEmpty()) {
+            for (byte[] fingerprint : cardRepository.findExistingCardFingerprints(fingerprints)) {
+                existing.add(ByteBuffer.wrap(fingerprint));
+            }
+            cardFingerprintFilter.recordFalsePositives(fingerprints.size() - existing.size());
+        }
+
+        CardImportResult[] results = new CardImportResult[prepared.size()];
+        List<Card> newCards = new ArrayList<>();
+        List<Integer> newCardPositions = new ArrayList<>();
+        for (int i = 0; i < prepared.size(); i++) {
+            PreparedCard card = prepared.get(i);
+            if (card.error() != null) {
+                results[i] = failed(card.line(), card.error());
+            } else if (existing.contains(ByteBuffer.wrap(card.cardFingerprint()))
+                    || !progress.seenFingerprints.add(ByteBuffer.wrap(card.cardFingerprint()))) {
+                results[i] = duplicate(card.line());
+            } else {
+                newCards.add(Card.builder()
+                        .cardFingerprint(card.cardFingerprint())
+                        .lastFourDigits(card.lastFourDigits())
+                        .cardHolder(card.cardHolder())
+                        .expiryDate(card.expiryDate())
+                        .build());
+                newCardPositions.add(i);
+            }
+        }
+
+        List<Card> saved = saveAll(newCards, progress.userId);
+        for (int i = 0; i < newCardPositions.size(); i++) {
+            int position = newCardPositions.get(i);
+            Card card = saved.get(i);
+            if (card == null) {
+                results[position] = duplicate(prepared.get(position).line());
+                continue;
+            }
+            cardFingerprintFilter.add(card.getCardFingerprint());
+            results[position] = CardImportResult.builder()
+                    .line(prepared.get(position).line())
+                    .status(CardImportStatus.CREATED)
+                    .cardId(card.getId())
+                    .maskedNumber("**** **** **** " + card.getLastFourDigits())
+                    .build();
+        }
+
+        for (CardImportResult result : results) {
+            switch (result.getStatus()) {
+                case CREATED -> progress.created++;
+                case DUPLICATE -> progress.duplicates++;
+                case FAILED -> progress.failed++;
+            }
+            cardMetrics.recordImportLines(result.getStatus(), 1);
+            write(output, result);
+        }
+        output.flush();
+    }
+
+    /**
+     * Inserts the chunk in one batch and transaction. If a concurrent request inserted one of the cards after
+     * the bulk duplicate check, the batch is rolled back and the cards are saved one by one, each in its own
+     * transaction; cards that still collide come back as {@code null}. The owner is resolved and the write
+     * recorded inside each transaction, since the import runs on a thread outside the request's.
+     */
+    private List<Card> saveAll(List<Card> cards, Long userId) {
+        if (cards.isEmpty()) {
+            return List.of();
+        }
+        try {
+            return transactionTemplate.execute(status -> {
+                User owner = userRepository.getReferenceById(userId);
+                cards.forEach(card -> card.setUser(owner));
+                List<Card> saved = cardRepository.saveAll(cards);
+                readYourWritesTracker.recordWrite(userId);
+                return saved;
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Card import batch hit a concurrent insert, retrying one by one: size={}", cards.size());
+            List<Card> saved = new ArrayList<>(cards.size());
+            for (Card card : cards) {
+                card.setId(null);
+                try {
+                    saved.add(transactionTemplate.execute(status -> {
+                        card.setUser(userRepository.getReferenceById(userId));
+                        Card inserted = cardRepository.save(card);
+                        readYourWritesTracker.recordWrite(userId);
+                        return inserted;
+                    }));
+                } catch (DataIntegrityViolationException duplicate) {
+                    saved.add(null);
+                }
+            }
+            return saved;
+        }
+    }
+
+    private PreparedCard prepare(ImportLine importLine, SecretKey sessionKey) {
+        int line = importLine.number();
+        try {
+            CreateCardRequest request = objectMapper.readValue(importLine.content(), CreateCardRequest.class);
+
+            Set<ConstraintViolation<CreateCardRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                ConstraintViolation<CreateCardRequest> violation = violations.iterator().next();
+                return PreparedCard.failed(line, violation.getPropertyPath() + ": " + violation.getMessage());
+            }
+
+            String decryptedCardNumber = sessionKey == null
+                    ? rsaService.decrypt(request.getEncryptedCardNumber())
+                    : rsaService.decrypt(sessionKey, request.getEncryptedCardNumber());
+            String cleanCardNumber = decryptedCardNumber.replaceAll("\\s", "");
+
+            if (!cardValidator.luhnCheck(cleanCardNumber)) {
+                return PreparedCard.failed(line, "Invalid card number");
+            }
+
+            String normalizedHolder = request.getCardHolder()
+                    .trim()
+                    .replaceAll("\\s+", " ")
+                    .toUpperCase();
+
+            return new PreparedCard(line,
+                    cardFingerprinter.fingerprint(cleanCardNumber),
+                    cleanCardNumber.substring(cleanCardNumber.length() - 4),
+                    normalizedHolder,
+                    request.getExpiryDate(),
+                    null);
+        } catch (JsonProcessingException e) {
+            return PreparedCard.failed(line, "Malformed JSON");
+        } catch (InvalidDataException e) {
+            return PreparedCard.failed(line, e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Card import line could not be processed: line={}", line, e);
+            return PreparedCard.failed(line, "Could not process line");
+        }
+    }
+
+    private JsonNode readHeader(String line) {
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            return node != null && node.hasNonNull(SESSION_KEY_FIELD) ? node : null;
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private PreparedCard await(Future<PreparedCard> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Card import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Card import failed", e.getCause());
+        }
+    }
+
+    private void write(OutputStream output, CardImportResult result) throws IOException {
+        output.write(objectMapper.writeValueAsBytes(result));
+        output.write('\n');
+    }
+
+    private static CardImportResult failed(int line, String message) {
+        return CardImportResult.builder()
+                .line(line)
+                .status(CardImportStatus.FAILED)
+                .message(message)
+                .build();
+    }
+
+    private static CardImportResult duplicate(int line) {
+        return CardImportResult.builder()
+                .line(line)
+                .status(CardImportStatus.DUPLICATE)
+                .message("Card already exists")
+                .build();
+    }
+
+    private record ImportLine(int number, String content) {
+    }
+
+    private record PreparedCard(int line, byte[] cardFingerprint, String lastFourDigits, String cardHolder,
+                                LocalDate expiryDate, String error) {
+
+        static PreparedCard failed(int line, String error) {
+            return new PreparedCard(line, null, null, null, null, error);
+        }
+    }
+
+    private static class ImportProgress {
+        private final Long userId;
+        private final Set<ByteBuffer> seenFingerprints = new HashSet<>();
+        private SecretKey sessionKey;
+        private int created;
+        private int duplicates;
+        private int failed;
+
+        private ImportProgress(Long userId) {
+            this.userId = userId;
+        }
+    }
+}
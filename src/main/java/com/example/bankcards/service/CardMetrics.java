@@ -0,0 +1,79 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.enums.CardImportStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Meters of the card hot paths, registered once so recording is a map lookup:
+ * <ul>
+ *     <li>{@code bank.card.transfer{outcome}} - single transfers, split by how they ended;</li>
+ *     <li>{@code bank.card.create.phase{phase}} - where {@code createCard} spends its time;</li>
+ *     <li>{@code bank.card.import.lines{status}} - NDJSON import lines by result.</li>
+ * </ul>
+ */
+@Component
+public class CardMetrics {
+
+    public enum TransferOutcome {
+        SUCCESS, REPLAYED, INSUFFICIENT_FUNDS, ACCESS_DENIED, FAILED
+    }
+
+    public enum CreatePhase {
+        DECRYPT, HASH, DUPLICATE_CHECK, INSERT
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Map<TransferOutcome, Timer> transferTimers = new EnumMap<>(TransferOutcome.class);
+    private final Map<CreatePhase, Timer> createPhaseTimers = new EnumMap<>(CreatePhase.class);
+    private final Map<CardImportStatus, Counter> importCounters = new EnumMap<>(CardImportStatus.class);
+
+    public CardMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (TransferOutcome outcome : TransferOutcome.values()) {
+            transferTimers.put(outcome, Timer.builder("bank.card.transfer")
+                    .description("Single card-to-card transfers")
+                    .tag("outcome", tagValue(outcome))
+                    .register(meterRegistry));
+        }
+        for (CreatePhase phase : CreatePhase.values()) {
+            createPhaseTimers.put(phase, Timer.builder("bank.card.create.phase")
+                    .description("Card creation, per phase")
+                    .tag("phase", tagValue(phase))
+                    .register(meterRegistry));
+        }
+        for (CardImportStatus status : CardImportStatus.values()) {
+            importCounters.put(status, Counter.builder("bank.card.import.lines")
+                    .description("Bulk import lines by result")
+                    .tag("status", tagValue(status))
+                    .register(meterRegistry));
+        }
+    }
+
+    public Timer.Sample startTimer() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void recordTransfer(Timer.Sample sample, TransferOutcome outcome) {
+        sample.stop(transferTimers.get(outcome));
+    }
+
+    public <T> T recordCreatePhase(CreatePhase phase, Supplier<T> step) {
+        return createPhaseTimers.get(phase).record(step);
+    }
+
+    public void recordImportLines(CardImportStatus status, long lines) {
+        importCounters.get(status).increment(lines);
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,15 +1,22 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.config.ReadYourWritesTracker;
 import com.example.bankcards.dto.CardDto;
 import com.example.bankcards.dto.TransactionDto;
 import com.example.bankcards.dto.request.CreateCardRequest;
 import com.example.bankcards.dto.request.TransferRequest;
 import com.example.bankcards.dto.request.UpdateCardRequest;
 import com.example.bankcards.dto.MessageDto;
+import com.example.bankcards.dto.response.BatchTransferItemResult;
+import com.example.bankcards.dto.response.BatchTransferResponse;
+import com.example.bankcards.dto.response.PageResponse;
+import com.example.bankcards.dto.response.TransactionPageResponse;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.LedgerEntry;
 import com.example.bankcards.entity.Transaction;
-import com.example.bankcards.entity.User;
 import com.example.bankcards.enums.CardStatus;
+import com.example.bankcards.enums.LedgerEntryType;
+import com.example.bankcards.enums.PageTotalMode;
 import com.example.bankcards.enums.TransactionStatus;
 import com.example.bankcards.enums.TransactionType;
 import com.example.bankcards.enums.UserRole;
@@ -17,32 +24,43 @@ import com.example.bankcards.exception.AccessDeniedException;
 import com.example.bankcards.exception.EntityNotFoundException;
 import com.example.bankcards.exception.InsufficientFundsException;
 import com.example.bankcards.exception.InvalidDataException;
+import com.example.bankcards.exception.InvalidOperationException;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardRepository.BalanceChange;
+import com.example.bankcards.repository.LedgerEntryRepository;
 import com.example.bankcards.repository.TransactionRepository;
+import com.example.bankcards.repository.TransactionRepository.TransactionRow;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.AuthenticatedUser;
+import com.example.bankcards.service.CardMetrics.CreatePhase;
+import com.example.bankcards.service.CardMetrics.TransferOutcome;
+import com.example.bankcards.util.CardFingerprinter;
 import com.example.bankcards.util.CardValidator;
-import jakarta.transaction.Transactional;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.Page;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Base64;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.LongSupplier;
 
 @Service
 @RequiredArgsConstructor
@@ -54,30 +72,40 @@ public class CardService {
     private final RsaService rsaService;
     private final CardValidator cardValidator;
     private final TransactionRepository transactionRepository;
+    private final IdempotencyService idempotencyService;
+    private final CardFingerprinter cardFingerprinter;
+    private final CardFingerprintFilter cardFingerprintFilter;
+    private final CardMetrics cardMetrics;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final PaginationService paginationService;
+    private final LedgerEntryRepository ledgerEntryRepository;
 
-    @Value("${app.card.hash.salt}")
-    private String cardHashSalt;
-
-    @Value("${app.card.hash.algorithm:SHA-256}")
-    private String hashAlgorithm;
+    private static final int MAX_TRANSACTION_PAGE_SIZE = 100;
 
 
     @Transactional
-    public CardDto createCard(UserDetails userDetails, CreateCardRequest request) {
-        User user = getCurrentUser(userDetails);
+    public CardDto createCard(AuthenticatedUser currentUser, CreateCardRequest request) {
+        requireAuthenticated(currentUser);
 
-        String decryptedCardNumber = rsaService.decrypt(request.getEncryptedCardNumber());
+        String decryptedCardNumber = cardMetrics.recordCreatePhase(CreatePhase.DECRYPT,
+                () -> rsaService.decrypt(request.getEncryptedCardNumber()));
         String cleanCardNumber = decryptedCardNumber.replaceAll("\\s", "");
 
         if (!isValidCardNumber(cleanCardNumber)) {
             throw new InvalidDataException("Invalid card number");
         }
 
-        String cardHash = generateCardHash(cleanCardNumber);
+        byte[] cardFingerprint = cardMetrics.recordCreatePhase(CreatePhase.HASH,
+                () -> cardFingerprinter.fingerprint(cleanCardNumber));
         String lastFourDigits = cleanCardNumber.substring(cleanCardNumber.length() - 4);
 
-        if (cardRepository.existsByCardHash(cardHash)) {
-            throw new InvalidDataException("Card already exists");
+        if (cardFingerprintFilter.mightContain(cardFingerprint)) {
+            boolean exists = cardMetrics.recordCreatePhase(CreatePhase.DUPLICATE_CHECK,
+                    () -> cardRepository.existsByCardFingerprint(cardFingerprint));
+            if (exists) {
+                throw new InvalidDataException("Card already exists");
+            }
+            cardFingerprintFilter.recordFalsePositives(1);
         }
 
         String normalizedHolder = request.getCardHolder()
@@ -86,55 +114,68 @@ public class CardService {
                 .toUpperCase();
 
         Card card = new Card();
-        card.setCardHash(cardHash);
+        card.setCardFingerprint(cardFingerprint);
         card.setLastFourDigits(lastFourDigits);
         card.setCardHolder(normalizedHolder);
         card.setExpiryDate(request.getExpiryDate());
-        card.setUser(user);
+        card.setUser(userRepository.getReferenceById(currentUser.getId()));
 
-        Card savedCard = cardRepository.save(card);
+        Card savedCard;
+        try {
+            savedCard = cardMetrics.recordCreatePhase(CreatePhase.INSERT, () -> cardRepository.saveAndFlush(card));
+        } catch (DataIntegrityViolationException e) {
+            throw new InvalidDataException("Card already exists");
+        }
+        cardFingerprintFilter.add(cardFingerprint);
+        readYourWritesTracker.recordWrite(currentUser.getId());
 
         return mapToDto(savedCard);
     }
 
-    public List<CardDto> getMyCards(UserDetails userDetails) {
-        User user = getCurrentUser(userDetails);
-        List<Card> cards = cardRepository.findAllByUser(user);
+    @Transactional(readOnly = true)
+    public List<CardDto> getMyCards(AuthenticatedUser currentUser) {
+        requireAuthenticated(currentUser);
+        List<Card> cards = cardRepository.findAllByUserId(currentUser.getId());
         return cards.stream().map(this::mapToDto).toList();
 
     }
 
-    public MessageDto deleteCard(UserDetails userDetails, Long id) {
-        User user = getCurrentUser(userDetails);
+    @Transactional
+    public MessageDto deleteCard(AuthenticatedUser currentUser, Long id) {
+        requireAuthenticated(currentUser);
         Card card = cardRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Card not found"));
 
-        if (!hasAccess(card, user)) {
+        if (!hasAccess(card, currentUser)) {
             throw new AccessDeniedException("Access denied");
         }
+        requireNoLedgerHistory(card);
         cardRepository.delete(card);
+        readYourWritesTracker.recordWrite(currentUser.getId());
 
         return new MessageDto("Card deleted successfully");
     }
 
-    public CardDto getCardById(UserDetails userDetails, Long id) {
-        User user = getCurrentUser(userDetails);
+    @Transactional(readOnly = true)
+    public CardDto getCardById(AuthenticatedUser currentUser, Long id) {
+        requireAuthenticated(currentUser);
         Card card = cardRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Card not found"));
 
-        if (!hasAccess(card, user)) {
+        if (!hasAccess(card, currentUser)) {
             throw new AccessDeniedException("Access denied");
         }
 
         return mapToDto(card);
     }
 
-    public CardDto updateCard(UserDetails userDetails, Long id, UpdateCardRequest request) {
-        User user = getCurrentUser(userDetails);
+    @Transactional
+    public CardDto updateCard(AuthenticatedUser currentUser, Long id, UpdateCardRequest request) {
+        requireAuthenticated(currentUser);
         Card card = cardRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Card not found"));
 
-        if (!hasAccess(card, user)) {
+        if (!hasAccess(card, currentUser)) {
             throw new AccessDeniedException("Access denied");
         }
 
@@ -146,68 +187,183 @@ public class CardService {
         card.setCardHolder(normalizedHolder);
 
         cardRepository.save(card);
+        readYourWritesTracker.recordWrite(currentUser.getId());
         return mapToDto(card);
     }
 
     @Transactional
-    public MessageDto transfer(UserDetails userDetails, TransferRequest request) {
-        User user = getCurrentUser(userDetails);
-        Long fromCardId = request.getFromCardId();
-        Long toCardId = request.getToCardId();
-        Long userId = user.getId();
-
-        boolean hasAccess = cardRepository.existsByIdAndUserId(fromCardId, userId)
-                && cardRepository.existsByIdAndUserId(toCardId, userId);
-
-        if (!hasAccess) {
-            throw new InsufficientFundsException("Access denied");
+    public MessageDto transfer(AuthenticatedUser currentUser, TransferRequest request, String idempotencyKey) {
+        requireAuthenticated(currentUser);
+        Timer.Sample sample = cardMetrics.startTimer();
+        TransferOutcome outcome = TransferOutcome.FAILED;
+        try {
+            if (idempotencyKey != null) {
+                Optional<MessageDto> replay = idempotencyService.claim(currentUser.getUsername(), idempotencyKey, request);
+                if (replay.isPresent()) {
+                    log.info("Transfer replayed for idempotency key: key={}", idempotencyKey);
+                    outcome = TransferOutcome.REPLAYED;
+                    return replay.get();
+                }
+            }
+            Long fromCardId = request.getFromCardId();
+            Long toCardId = request.getToCardId();
+
+            List<Card> ownedCards = cardRepository.findAllByIdInAndUserId(
+                    List.of(fromCardId, toCardId), currentUser.getId());
+            Card fromCard = findCard(ownedCards, fromCardId);
+            Card toCard = findCard(ownedCards, toCardId);
+
+            if (fromCard == null || toCard == null) {
+                outcome = TransferOutcome.ACCESS_DENIED;
+                throw new InsufficientFundsException("Access denied");
+            }
+
+            BigDecimal amount = request.getAmount();
+
+            // Each conditional UPDATE takes the row lock of its card, so the statements are issued
+            // in ascending id order to keep opposite-direction transfers from deadlocking.
+            BalanceChange debited;
+            BalanceChange credited;
+            if (fromCardId <= toCardId) {
+                debited = debitOrThrow(fromCardId, amount);
+                credited = creditOrThrow(toCardId, amount);
+            } else {
+                credited = creditOrThrow(toCardId, amount);
+                debited = debitOrThrow(fromCardId, amount);
+            }
+
+            Transaction transaction = new Transaction();
+            transaction.setFromCard(fromCard);
+            transaction.setToCard(toCard);
+            transaction.setAmount(amount);
+            transaction.setStatus(TransactionStatus.COMPLETED);
+            transaction.setType(TransactionType.TRANSFER);
+            transaction.setDescription(String.format("Transfer from %s to %s, amount %s", fromCard.getCardHolder(), toCard.getCardHolder(), amount.toString()));
+
+            transactionRepository.save(transaction);
+            // Both legs go out as one JDBC batch.
+            ledgerEntryRepository.saveAll(List.of(
+                    ledgerEntry(transaction, fromCard, LedgerEntryType.DEBIT, debited.getBalance(), debited.getEntryNumber()),
+                    ledgerEntry(transaction, toCard, LedgerEntryType.CREDIT, credited.getBalance(), credited.getEntryNumber())));
+
+            log.info("Transfer completed: fromCardId={}, toCardId={}, amount={}",
+                    fromCardId, toCardId, amount);
+
+            MessageDto response = new MessageDto("Transfer successfully");
+            if (idempotencyKey != null) {
+                idempotencyService.recordCompleted(currentUser.getUsername(), idempotencyKey, request, response);
+            }
+
+            readYourWritesTracker.recordWrite(currentUser.getId());
+            outcome = TransferOutcome.SUCCESS;
+            return response;
+        } catch (InsufficientFundsException e) {
+            if (outcome == TransferOutcome.FAILED) {
+                outcome = TransferOutcome.INSUFFICIENT_FUNDS;
+            }
+            throw e;
+        } finally {
+            cardMetrics.recordTransfer(sample, outcome);
         }
+    }
 
-        Card fromCard = cardRepository.findById(fromCardId)
-                .orElseThrow(() -> new EntityNotFoundException("Card not found"));
-        Card toCard = cardRepository.findById(toCardId)
-                .orElseThrow(() -> new EntityNotFoundException("Card not found"));
-
-
-        BigDecimal amount = request.getAmount();
-        BigDecimal remaining = fromCard.getBalance().subtract(amount);
+    @Transactional
+    public BatchTransferResponse transferBatch(AuthenticatedUser currentUser, List<TransferRequest> transfers) {
+        requireAuthenticated(currentUser);
 
-        if (remaining.compareTo(BigDecimal.ZERO) < 0) {
-            throw new InsufficientFundsException("Not enough money");
+        Set<Long> cardIds = new TreeSet<>();
+        for (TransferRequest transfer : transfers) {
+            cardIds.add(transfer.getFromCardId());
+            cardIds.add(transfer.getToCardId());
         }
 
-        fromCard.setBalance(fromCard.getBalance().subtract(amount));
-        toCard.setBalance(toCard.getBalance().add(amount));
-
-        Transaction transaction = new Transaction();
-        transaction.setFromCard(fromCard);
-        transaction.setToCard(toCard);
-        transaction.setAmount(amount);
-        transaction.setStatus(TransactionStatus.COMPLETED);
-        transaction.setType(TransactionType.TRANSFER);
-        transaction.setDescription(String.format("Transfer from %s to %s, amount %s", fromCard.getCardHolder(), toCard.getCardHolder(), amount.toString()));
-
-        fromCard.addOutgoingTransaction(transaction);
-        toCard.addIncomingTransaction(transaction);
-
-        cardRepository.save(fromCard);
-        cardRepository.save(toCard);
+        Map<Long, Card> cards = new HashMap<>();
+        for (Card card : cardRepository.findAllByIdInForUpdate(cardIds)) {
+            cards.put(card.getId(), card);
+        }
 
-        transactionRepository.save(transaction);
+        List<BatchTransferItemResult> results = new ArrayList<>(transfers.size());
+        List<Transaction> transactions = new ArrayList<>();
+        List<LedgerEntry> ledgerEntries = new ArrayList<>();
+
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequest transfer = transfers.get(i);
+            Card fromCard = cards.get(transfer.getFromCardId());
+            Card toCard = cards.get(transfer.getToCardId());
+            BigDecimal amount = transfer.getAmount();
+
+            String failure = null;
+            if (fromCard == null || toCard == null
+                    || !isOwner(fromCard, currentUser)
+                    || !isOwner(toCard, currentUser)) {
+                failure = "Access denied";
+            } else if (fromCard.getStatus() != CardStatus.ACTIVE || toCard.getStatus() != CardStatus.ACTIVE) {
+                failure = "Card is not active";
+            }
+
+            BatchTransferItemResult.BatchTransferItemResultBuilder result = BatchTransferItemResult.builder()
+                    .index(i)
+                    .fromCardId(transfer.getFromCardId())
+                    .toCardId(transfer.getToCardId());
+
+            if (failure != null) {
+                results.add(result.status(TransactionStatus.FAILED).message(failure).build());
+                continue;
+            }
+
+            // Both rows are already locked, so the statement order cannot deadlock and the only way
+            // the debit can miss is an insufficient balance.
+            Optional<BalanceChange> debited = cardRepository.debit(fromCard.getId(), amount);
+            if (debited.isEmpty()) {
+                results.add(result.status(TransactionStatus.FAILED).message("Not enough money").build());
+                continue;
+            }
+            BalanceChange credited = cardRepository.credit(toCard.getId(), amount)
+                    .orElseThrow(() -> new IllegalStateException("Locked active card was not credited"));
+
+            Transaction transaction = new Transaction();
+            transaction.setFromCard(fromCard);
+            transaction.setToCard(toCard);
+            transaction.setAmount(amount);
+            transaction.setStatus(TransactionStatus.COMPLETED);
+            transaction.setType(TransactionType.TRANSFER);
+            transaction.setDescription(String.format("Transfer from %s to %s, amount %s", fromCard.getCardHolder(), toCard.getCardHolder(), amount.toString()));
+            transactions.add(transaction);
+
+            ledgerEntries.add(ledgerEntry(transaction, fromCard, LedgerEntryType.DEBIT,
+                    debited.get().getBalance(), debited.get().getEntryNumber()));
+            ledgerEntries.add(ledgerEntry(transaction, toCard, LedgerEntryType.CREDIT,
+                    credited.getBalance(), credited.getEntryNumber()));
+
+            results.add(result.status(TransactionStatus.COMPLETED)
+                    .transactionId(transaction.getTransactionId())
+                    .message("Transfer successfully")
+                    .build());
+        }
 
-        log.info("Transfer completed: fromCardId={}, toCardId={}, amount={}",
-                fromCardId, toCardId, amount);
+        transactionRepository.saveAll(transactions);
+        ledgerEntryRepository.saveAll(ledgerEntries);
+        if (!transactions.isEmpty()) {
+            readYourWritesTracker.recordWrite(currentUser.getId());
+        }
 
+        log.info("Batch transfer completed: userId={}, completed={}, failed={}",
+                currentUser.getId(), transactions.size(), transfers.size() - transactions.size());
 
-        return new MessageDto("Transfer successfully");
+        return BatchTransferResponse.builder()
+                .completed(transactions.size())
+                .failed(transfers.size() - transactions.size())
+                .results(results)
+                .build();
     }
 
-    public MessageDto requestBlockCard(UserDetails userDetails, Long cardId) {
-        User user = getCurrentUser(userDetails);
+    @Transactional
+    public MessageDto requestBlockCard(AuthenticatedUser currentUser, Long cardId) {
+        requireAuthenticated(currentUser);
         Card card = cardRepository.findById(cardId)
                 .orElseThrow(() -> new EntityNotFoundException("Card not found"));
 
-        if (!card.getUser().equals(user)) {
+        if (!isOwner(card, currentUser)) {
             throw new AccessDeniedException("Not your card");
         }
         if (card.getStatus() == CardStatus.BLOCKED) {
@@ -221,8 +377,9 @@ public class CardService {
 
         card.setStatus(CardStatus.BLOCKED);
         cardRepository.save(card);
+        readYourWritesTracker.recordWrite(currentUser.getId());
 
-        log.info("Card blocked by user: cardId={}, userId={}", cardId, user.getId());
+        log.info("Card blocked by user: cardId={}, userId={}", cardId, currentUser.getId());
 
         return new MessageDto("Card blocked successfully");
     }
@@ -232,22 +389,33 @@ public class CardService {
     //-------------------------------
     //Admins methods
 
-    public Page<CardDto> getAllCards(Long userId, CardStatus status, Pageable pageable) {
-        Page<Card> cards;
+    @Transactional(readOnly = true)
+    public PageResponse<CardDto> getAllCards(Long userId, CardStatus status, PageTotalMode total, Pageable pageable) {
+        Slice<Card> cards;
+        LongSupplier count;
 
         if (userId != null && status != null) {
-            cards = cardRepository.findByUserIdAndStatus(userId, status, pageable);
+            cards = cardRepository.findSliceByUserIdAndStatus(userId, status, pageable);
+            count = () -> cardRepository.countByUserIdAndStatus(userId, status);
         } else if (userId != null) {
-            cards = cardRepository.findByUserId(userId, pageable);
+            cards = cardRepository.findSliceByUserId(userId, pageable);
+            count = () -> cardRepository.countByUserId(userId);
         } else if (status != null) {
-            cards = cardRepository.findByStatus(status, pageable);
+            cards = cardRepository.findSliceByStatus(status, pageable);
+            count = () -> cardRepository.countByStatus(status);
         } else {
-            cards = cardRepository.findAll(pageable);
+            cards = cardRepository.findSliceBy(pageable);
+            count = cardRepository::count;
         }
 
-        return cards.map(this::mapToDto);
+        boolean filtered = userId != null || status != null;
+        return paginationService.toResponse(cards.map(this::mapToDto), total,
+                "cards:" + userId + ":" + status,
+                filtered ? null : cardRepository::estimateCount,
+                count);
     }
 
+    @Transactional
     public CardDto blockCard(@PathVariable Long cardId){
         Card card = cardRepository.findById(cardId)
                 .orElseThrow(() -> new EntityNotFoundException("Card not found"));
@@ -257,6 +425,7 @@ public class CardService {
         return mapToDto(card);
     }
 
+    @Transactional
     public CardDto activateCard(Long cardId) {
         Card card = cardRepository.findById(cardId)
                 .orElseThrow(() -> new EntityNotFoundException("Card not found"));
@@ -266,61 +435,157 @@ public class CardService {
         return mapToDto(card);
     }
 
+    @Transactional
     public MessageDto deleteCard(Long cardId){
         Card card = cardRepository.findById(cardId)
                 .orElseThrow(() -> new EntityNotFoundException("Card not found"));
+        requireNoLedgerHistory(card);
         cardRepository.delete(card);
         return new MessageDto("Card deleted successfully");
     }
 
-    public List<TransactionDto> getCardTransactions(Long cardId){
-        Card card = cardRepository.findById(cardId)
-                .orElseThrow(() -> new EntityNotFoundException("Card not found"));
-        return Stream.concat(
-                        card.getIncomingTransactions().stream(),
-                        card.getOutgoingTransactions().stream()
-                )
-                .distinct()
-                .sorted(Comparator.comparing(Transaction::getCreatedAt).reversed())
-                .map(this::mapToDto)
-                .toList();
+    @Transactional(readOnly = true)
+    public TransactionPageResponse getCardTransactions(Long cardId, String cursor, int size) {
+        if (size < 1 || size > MAX_TRANSACTION_PAGE_SIZE) {
+            throw new InvalidDataException("Page size must be between 1 and " + MAX_TRANSACTION_PAGE_SIZE);
+        }
+        if (!cardRepository.existsById(cardId)) {
+            throw new EntityNotFoundException("Card not found");
+        }
+
+        // One extra row tells whether another page exists without running a count query.
+        int limit = size + 1;
+        List<TransactionRow> rows;
+        if (cursor == null) {
+            rows = transactionRepository.findLatestByCardId(cardId, limit);
+        } else {
+            TransactionCursor position = decodeCursor(cursor);
+            rows = transactionRepository.findByCardIdBefore(cardId, position.createdAt().toLocalDate(), position.id(), limit);
+        }
+        List<TransactionDto> transactions = rows.stream().map(this::mapToDto).toList();
+
+        String nextCursor = null;
+        if (transactions.size() > size) {
+            transactions = transactions.subList(0, size);
+            nextCursor = encodeCursor(transactions.get(size - 1));
+        }
+
+        return TransactionPageResponse.builder()
+                .content(transactions)
+                .nextCursor(nextCursor)
+                .build();
     }
 
 
-    private User getCurrentUser(UserDetails userDetails) {
-        if (userDetails == null) {
+    private void requireAuthenticated(AuthenticatedUser currentUser) {
+        if (currentUser == null) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Нужно войти в систему");
         }
-        String username = userDetails.getUsername();
-        return userRepository.findByEmail(username)
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
     }
 
-    private boolean hasAccess(Card card, User user) {
-        return card.getUser().equals(user) || user.getRole() == UserRole.ADMIN;
+    private Card findCard(List<Card> cards, Long cardId) {
+        for (Card card : cards) {
+            if (card.getId().equals(cardId)) {
+                return card;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Ledger entries are kept for good, and their foreign key refuses to let the card go; a card that ever
+     * held money can only be blocked.
+     */
+    private void requireNoLedgerHistory(Card card) {
+        if (card.getLastEntryNumber() > 0) {
+            throw new InvalidOperationException("Card has balance history and cannot be deleted, block it instead");
+        }
+    }
+
+    private BalanceChange debitOrThrow(Long cardId, BigDecimal amount) {
+        Optional<BalanceChange> debited = cardRepository.debit(cardId, amount);
+        if (debited.isEmpty()) {
+            Card card = cardRepository.findById(cardId)
+                    .orElseThrow(() -> new EntityNotFoundException("Card not found"));
+            if (card.getStatus() != CardStatus.ACTIVE) {
+                throw new InvalidDataException("Card is not active");
+            }
+            throw new InsufficientFundsException("Not enough money");
+        }
+        return debited.get();
+    }
+
+    private BalanceChange creditOrThrow(Long cardId, BigDecimal amount) {
+        Optional<BalanceChange> credited = cardRepository.credit(cardId, amount);
+        if (credited.isEmpty()) {
+            if (!cardRepository.existsById(cardId)) {
+                throw new EntityNotFoundException("Card not found");
+            }
+            throw new InvalidDataException("Card is not active");
+        }
+        return credited.get();
+    }
+
+    private LedgerEntry ledgerEntry(Transaction transaction, Card card, LedgerEntryType type,
+                                    BigDecimal balanceAfter, Long entryNumber) {
+        return LedgerEntry.builder()
+                .transaction(transaction)
+                .card(card)
+                .type(type)
+                .amount(transaction.getAmount())
+                .balanceAfter(balanceAfter)
+                .entryNumber(entryNumber)
+                .build();
     }
 
-    private boolean hasAccessToTransfer(User user, Card fromCard, Card toCard) {
-        Long userId = user.getId();
-        return fromCard.getUser().getId().equals(userId)
-                && toCard.getUser().getId().equals(userId);
+    private String encodeCursor(TransactionDto transaction) {
+        String position = transaction.getCreatedAt() + "|" + transaction.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
     }
 
-    private String generateCardHash(String cardNumber) {
+    private TransactionCursor decodeCursor(String cursor) {
         try {
-            MessageDigest digest = MessageDigest.getInstance(hashAlgorithm);
-            String data = cardNumber + cardHashSalt;
-            byte[] hash = digest.digest(data.getBytes());
-            return Base64.getEncoder().encodeToString(hash);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256 not available", e);
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.indexOf('|');
+            return new TransactionCursor(
+                    LocalDateTime.parse(position.substring(0, separator)),
+                    Long.parseLong(position.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new InvalidDataException("Invalid cursor");
         }
     }
 
+    private record TransactionCursor(LocalDateTime createdAt, Long id) {
+    }
+
+    private boolean hasAccess(Card card, AuthenticatedUser currentUser) {
+        return isOwner(card, currentUser) || currentUser.getRole() == UserRole.ADMIN;
+    }
+
+    private boolean isOwner(Card card, AuthenticatedUser currentUser) {
+        return card.getUser().getId().equals(currentUser.getId());
+    }
+
     private boolean isValidCardNumber(String cardNumber) {
         return cardValidator.luhnCheck(cardNumber);
     }
 
+    private TransactionDto mapToDto(TransactionRow row) {
+        return TransactionDto.builder()
+                .id(row.getId())
+                .transactionId(row.getTransactionId())
+                .amount(row.getAmount())
+                .description(row.getDescription())
+                .status(row.getStatus())
+                .type(row.getType())
+                .createdAt(row.getCreatedAt())
+                .fromCardId(row.getFromCardId())
+                .fromCardMaskedNumber(row.getFromCardMaskedNumber())
+                .toCardId(row.getToCardId())
+                .toCardMaskedNumber(row.getToCardMaskedNumber())
+                .build();
+    }
+
     private CardDto mapToDto(Card card) {
         CardDto dto = new CardDto();
         dto.setId(card.getId());
@@ -332,18 +597,4 @@ public class CardService {
         dto.setCreatedAt(card.getCreatedAt());
         return dto;
     }
-
-    private TransactionDto mapToDto(Transaction transaction) {
-        TransactionDto dto = new TransactionDto();
-        dto.setId(transaction.getId());
-        dto.setTransactionId(transaction.getTransactionId());
-        dto.setToCard(transaction.getToCard());
-        dto.setFromCard(transaction.getFromCard());
-        dto.setDescription(transaction.getDescription());
-        dto.setAmount(transaction.getAmount());
-        dto.setType(transaction.getType());
-        dto.setCreatedAt(transaction.getCreatedAt());
-        dto.setStatus(transaction.getStatus());
-        return dto;
-    }
 }
@@ -0,0 +1,151 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.MessageDto;
+import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.exception.InvalidDataException;
+import com.example.bankcards.repository.IdempotencyRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Remembers transfer responses per {@code Idempotency-Key}, so client retries get the original result
+ * instead of moving the money again. Keys live in {@code idempotency_keys} with an in-memory front cache,
+ * together with a hash of the transfer they were first used for.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final Duration ttl;
+    private final Cache<String, CompletedRequest> completed;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              @Value("${app.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${app.idempotency.cache-size:10000}") long cacheSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Returns the response of a transfer that already completed with this key, if it is still in the in-memory
+     * cache. Runs outside any transaction, so retries answered from memory never take a connection; a miss
+     * falls through to {@link #claim} in the transfer's transaction. Reusing a key for a different transfer is
+     * rejected.
+     */
+    public Optional<MessageDto> replayIfCached(String owner, String idempotencyKey, TransferRequest request) {
+        validateKey(idempotencyKey);
+        CompletedRequest cached = completed.getIfPresent(cacheKey(owner, idempotencyKey));
+        if (cached == null) {
+            return Optional.empty();
+        }
+        return Optional.of(replay(cached, requestHash(request)));
+    }
+
+    /**
+     * Claims the key for this transfer inside the caller's transaction, or returns the response of the
+     * transfer that already used it. A concurrent request with the same key waits on the claim until the first
+     * transfer finishes, then replays its response (or claims the key itself if that transfer rolled back).
+     * Reusing a key for a different transfer is rejected.
+     */
+    public Optional<MessageDto> claim(String owner, String idempotencyKey, TransferRequest request) {
+        validateKey(idempotencyKey);
+        byte[] requestHash = requestHash(request);
+
+        LocalDateTime now = LocalDateTime.now();
+        if (idempotencyRecordRepository.claim(owner, idempotencyKey, requestHash, now, now.plus(ttl)) == 1) {
+            return Optional.empty();
+        }
+
+        CompletedRequest stored = idempotencyRecordRepository.findByOwnerAndIdempotencyKey(owner, idempotencyKey)
+                .filter(record -> record.getResponseMessage() != null)
+                .map(record -> new CompletedRequest(record.getRequestHash(), new MessageDto(record.getResponseMessage())))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.CONFLICT,
+                        "A request with this Idempotency-Key is still in progress"));
+        completed.put(cacheKey(owner, idempotencyKey), stored);
+        return Optional.of(replay(stored, requestHash));
+    }
+
+    /**
+     * Stores the response on the key claimed by {@link #claim}, inside the caller's transaction; the cache is
+     * only filled after commit.
+     */
+    public void recordCompleted(String owner, String idempotencyKey, TransferRequest request, MessageDto response) {
+        idempotencyRecordRepository.complete(owner, idempotencyKey, response.getMessage());
+
+        String cacheKey = cacheKey(owner, idempotencyKey);
+        CompletedRequest completedRequest = new CompletedRequest(requestHash(request), response);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    completed.put(cacheKey, completedRequest);
+                }
+            });
+        } else {
+            completed.put(cacheKey, completedRequest);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Purged expired idempotency keys: count={}", deleted);
+        }
+    }
+
+    private void validateKey(String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidDataException("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+    }
+
+    private String cacheKey(String owner, String idempotencyKey) {
+        return owner + ':' + idempotencyKey;
+    }
+
+    private static MessageDto replay(CompletedRequest completedRequest, byte[] requestHash) {
+        if (!MessageDigest.isEqual(completedRequest.requestHash(), requestHash)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used for a different transfer");
+        }
+        return completedRequest.response();
+    }
+
+    private static byte[] requestHash(TransferRequest request) {
+        String transfer = request.getFromCardId() + "|" + request.getToCardId() + "|"
+                + request.getAmount().stripTrailingZeros().toPlainString();
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(transfer.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record CompletedRequest(byte[] requestHash, MessageDto response) {
+    }
+}
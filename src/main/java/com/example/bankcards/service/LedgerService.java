@@ -0,0 +1,100 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.LedgerEntryDto;
+import com.example.bankcards.dto.response.LedgerBalanceMismatch;
+import com.example.bankcards.dto.response.LedgerPageResponse;
+import com.example.bankcards.dto.response.LedgerVerificationResponse;
+import com.example.bankcards.exception.EntityNotFoundException;
+import com.example.bankcards.exception.InvalidDataException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.LedgerEntryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Reads of the append-only ledger. Entries are written by {@link CardService} in the transaction that changes
+ * the balance; here they are paged per card and checked against {@code cards.balance}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerService {
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final CardRepository cardRepository;
+
+    private static final int MAX_LEDGER_PAGE_SIZE = 100;
+    private static final int MAX_REPORTED_MISMATCHES = 100;
+
+    @Transactional(readOnly = true)
+    public LedgerPageResponse getCardLedger(Long cardId, String cursor, int size) {
+        if (size < 1 || size > MAX_LEDGER_PAGE_SIZE) {
+            throw new InvalidDataException("Page size must be between 1 and " + MAX_LEDGER_PAGE_SIZE);
+        }
+        if (!cardRepository.existsById(cardId)) {
+            throw new EntityNotFoundException("Card not found");
+        }
+
+        // One extra row tells whether another page exists without running a count query.
+        List<LedgerEntryDto> entries = ledgerEntryRepository.findByCardIdBefore(
+                cardId, cursor == null ? Long.MAX_VALUE : decodeCursor(cursor), PageRequest.of(0, size + 1));
+
+        String nextCursor = null;
+        if (entries.size() > size) {
+            entries = entries.subList(0, size);
+            nextCursor = entries.get(size - 1).getEntryNumber().toString();
+        }
+
+        return LedgerPageResponse.builder()
+                .content(entries)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Recomputes every card balance from the ledger. Reads all entries, so it is meant for reconciliation
+     * jobs and incident checks rather than request paths.
+     */
+    @Transactional(readOnly = true)
+    public LedgerVerificationResponse verify() {
+        Pageable reported = PageRequest.of(0, MAX_REPORTED_MISMATCHES);
+        List<LedgerBalanceMismatch> mismatches = ledgerEntryRepository.findBalanceMismatches(reported).stream()
+                .map(mismatch -> LedgerBalanceMismatch.builder()
+                        .cardId(mismatch.getCardId())
+                        .cachedBalance(mismatch.getCachedBalance())
+                        .ledgerBalance(mismatch.getLedgerBalance())
+                        .cachedEntryNumber(mismatch.getCachedEntryNumber())
+                        .ledgerEntryNumber(mismatch.getLedgerEntryNumber())
+                        .build())
+                .toList();
+        long brokenChainEntries = ledgerEntryRepository.countBrokenChainEntries();
+        long unbalancedTransactions = ledgerEntryRepository.countUnbalancedTransactions();
+
+        boolean consistent = mismatches.isEmpty() && brokenChainEntries == 0 && unbalancedTransactions == 0;
+        if (!consistent) {
+            log.warn("Ledger verification failed: balanceMismatches={}, brokenChainEntries={}, unbalancedTransactions={}",
+                    mismatches.size(), brokenChainEntries, unbalancedTransactions);
+        }
+
+        return LedgerVerificationResponse.builder()
+                .consistent(consistent)
+                .balanceMismatches(mismatches)
+                .brokenChainEntries(brokenChainEntries)
+                .unbalancedTransactions(unbalancedTransactions)
+                .build();
+    }
+
+    private long decodeCursor(String cursor) {
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new InvalidDataException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.response.PageResponse;
+import com.example.bankcards.enums.PageTotalMode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Turns a {@link Slice} (fetched with one extra row instead of a {@code count(*)}) into a {@link PageResponse},
+ * adding a total only as precise as the caller asked for. On the last page the total is known from the
+ * slice itself, so no mode counts there.
+ */
+@Service
+public class PaginationService {
+
+    private static final long MAX_CACHED_COUNTS = 10_000;
+
+    private final PageTotalMode defaultMode;
+    private final Cache<String, Long> counts;
+
+    public PaginationService(@Value("${app.pagination.default-total-mode:ESTIMATED}") PageTotalMode defaultMode,
+                             @Value("${app.pagination.count-cache-ttl-seconds:60}") long countCacheTtlSeconds) {
+        this.defaultMode = defaultMode;
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_COUNTS)
+                .expireAfterWrite(Duration.ofSeconds(countCacheTtlSeconds))
+                .build();
+    }
+
+    /**
+     * @param countKey   identifies the listing and its filters, for caching the count
+     * @param estimate   planner row estimate of an unfiltered listing, negative if unknown; {@code null} when
+     *                   filtered, in which case {@code ESTIMATED} falls back to the cached count
+     * @param exactCount {@code count(*)} for the listing
+     */
+    public <T> PageResponse<T> toResponse(Slice<T> slice, PageTotalMode requestedMode, String countKey,
+                                          LongSupplier estimate, LongSupplier exactCount) {
+        PageTotalMode mode = requestedMode != null ? requestedMode : defaultMode;
+        long seen = slice.getNumber() * (long) slice.getSize() + slice.getNumberOfElements();
+
+        Long total;
+        if (mode == PageTotalMode.NONE) {
+            total = null;
+        } else if (!slice.hasNext() && (slice.hasContent() || slice.isFirst())) {
+            total = seen;
+        } else if (mode == PageTotalMode.EXACT) {
+            total = exactCount.getAsLong();
+        } else {
+            long estimated = estimate != null ? estimate.getAsLong() : -1;
+            if (estimated < 0) {
+                estimated = counts.get(countKey, key -> exactCount.getAsLong());
+            }
+            // An estimate must not contradict rows already seen.
+            total = Math.max(estimated, seen + (slice.hasNext() ? 1 : 0));
+        }
+
+        return PageResponse.<T>builder()
+                .content(slice.getContent())
+                .page(slice.getNumber())
+                .size(slice.getSize())
+                .hasNext(slice.hasNext())
+                .totalElements(total)
+                .totalPages(total == null || slice.getSize() == 0 ? null : (int) ((total + slice.getSize() - 1) / slice.getSize()))
+                .totalMode(mode)
+                .build();
+    }
+}
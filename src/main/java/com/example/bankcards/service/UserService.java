@@ -1,14 +1,20 @@
 package com.example.bankcards.service;
 
 import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.dto.response.PageResponse;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.enums.PageTotalMode;
 import com.example.bankcards.enums.UserRole;
 import com.example.bankcards.exception.EntityNotFoundException;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.TokenDenylist;
+import com.example.bankcards.security.UserCache;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 
 import java.util.List;
@@ -17,42 +23,75 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserService {
     private final UserRepository userRepository;
+    private final TokenDenylist tokenDenylist;
+    private final UserCache userCache;
+    private final PaginationService paginationService;
 
-    public Page<UserDto> getAllUsers(Pageable pageable) {
-        Page<User> users = userRepository.findAll(pageable);
-        return users.map(this::matToDto);
+    @Transactional(readOnly = true)
+    public PageResponse<UserDto> getAllUsers(PageTotalMode total, Pageable pageable) {
+        return paginationService.toResponse(userRepository.findSliceBy(pageable).map(this::matToDto), total,
+                "users", userRepository::estimateCount, userRepository::count);
     }
 
+    @Transactional(readOnly = true)
     public UserDto getUser(Long userId){
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
         return matToDto(user);
     }
 
+    @Transactional
     public UserDto changeUserRole(Long userId, UserRole role) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
         user.setRole(role);
         userRepository.save(user);
+        afterCommit(() -> {
+            userCache.evict(user);
+            tokenDenylist.revoke(user.getUsername());
+        });
         return matToDto(user);
     }
 
+    @Transactional
     public UserDto blockUser(Long userId){
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
         user.setEnabled(false);
         userRepository.save(user);
+        afterCommit(() -> {
+            userCache.evict(user);
+            tokenDenylist.revoke(user.getUsername());
+        });
         return matToDto(user);
     }
 
+    @Transactional
     public UserDto unblockUser(Long userId){
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
         user.setEnabled(true);
         userRepository.save(user);
+        afterCommit(() -> userCache.evict(user));
         return matToDto(user);
     }
 
+    /**
+     * Evicting before commit would let a concurrent request reload the old row and cache it for the TTL.
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
     private UserDto matToDto(User user) {
         UserDto userDto = new UserDto();
         userDto.setId(user.getId());
@@ -0,0 +1,68 @@
+package com.example.bankcards.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+
+/**
+ * Card number fingerprint used for duplicate detection: {@code HMAC-SHA256(key, SHA-256(number + salt))},
+ * a fixed 32 bytes stored in {@code cards.card_fingerprint}. The inner digest is the value the previous
+ * {@code card_hash} column held, which lets the migration re-key existing rows without the card numbers.
+ * <p>
+ * {@link MessageDigest} and {@link Mac} instances are pooled, so a fingerprint costs no provider lookups or
+ * key setup.
+ */
+@Component
+public class CardFingerprinter {
+
+    public static final int FINGERPRINT_LENGTH = 32;
+    public static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final byte[] salt;
+    private final InstancePool<MessageDigest> digests;
+    private final InstancePool<Mac> macs;
+
+    public CardFingerprinter(@Value("${app.card.hash.salt}") String cardHashSalt) {
+        this.salt = cardHashSalt.getBytes(StandardCharsets.UTF_8);
+        this.digests = InstancePool.perProcessor(() -> {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        });
+        this.macs = InstancePool.perProcessor(() -> newMac(salt));
+    }
+
+    public byte[] fingerprint(String cardNumber) {
+        MessageDigest digest = digests.borrow();
+        digest.update(cardNumber.getBytes(StandardCharsets.UTF_8));
+        digest.update(salt);
+        byte[] inner = digest.digest();
+        digests.release(digest);
+
+        Mac mac = macs.borrow();
+        byte[] fingerprint = mac.doFinal(inner);
+        macs.release(mac);
+        return fingerprint;
+    }
+
+    /**
+     * A {@link Mac} keyed with the card hash salt. Shared with the Liquibase backfill so both compute the
+     * keyed step the same way.
+     */
+    public static Mac newMac(byte[] key) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(key, HMAC_ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC_ALGORITHM + " not available", e);
+        }
+    }
+}
@@ -2,48 +2,83 @@ package com.example.bankcards.util;
 
 import org.springframework.stereotype.Component;
 
+/**
+ * Luhn validation over the ASCII digits of a card number; any other character (spaces, dashes) is skipped.
+ * The checks walk the input in place with a lookup table for the doubled digits, so they allocate nothing
+ * and can run on the hot import path.
+ */
 @Component
 public class CardValidator {
 
-    public boolean luhnCheck(String cardNumber) {
-        if (cardNumber == null || cardNumber.trim().isEmpty()) {
-            return false;
-        }
+    private static final int MIN_DIGITS = 13;
+    private static final int MAX_DIGITS = 19;
 
-        String digits = cardNumber.replaceAll("\\D", "");
+    /** {@code 2 * d} with its digits summed, i.e. {@code 2 * d - 9} above 9. */
+    private static final int[] DOUBLED = {0, 2, 4, 6, 8, 1, 3, 5, 7, 9};
 
-        if (digits.length() < 13 || digits.length() > 19) {
+    public boolean luhnCheck(CharSequence cardNumber) {
+        if (cardNumber == null) {
             return false;
         }
 
         int sum = 0;
-        boolean alternate = false;
+        int digits = 0;
+        for (int i = cardNumber.length() - 1; i >= 0; i--) {
+            int digit = cardNumber.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                continue;
+            }
+            sum += (digits & 1) == 0 ? digit : DOUBLED[digit];
+            digits++;
+        }
 
-        for (int i = digits.length() - 1; i >= 0; i--) {
-            int digit = Character.getNumericValue(digits.charAt(i));
+        return digits >= MIN_DIGITS && digits <= MAX_DIGITS && sum % 10 == 0;
+    }
 
-            if (alternate) {
-                digit *= 2;
-                if (digit > 9) {
-                    digit = digit - 9;
-                }
-            }
+    /**
+     * Same check over ASCII bytes, e.g. a decrypted card number before it is turned into a String.
+     */
+    public boolean luhnCheck(byte[] cardNumber, int offset, int length) {
+        if (cardNumber == null) {
+            return false;
+        }
 
-            sum += digit;
-            alternate = !alternate;
+        int sum = 0;
+        int digits = 0;
+        for (int i = offset + length - 1; i >= offset; i--) {
+            int digit = cardNumber[i] - '0';
+            if (digit < 0 || digit > 9) {
+                continue;
+            }
+            sum += (digits & 1) == 0 ? digit : DOUBLED[digit];
+            digits++;
         }
 
-        return (sum % 10 == 0);
+        return digits >= MIN_DIGITS && digits <= MAX_DIGITS && sum % 10 == 0;
     }
 
-    public static String getCardType(String cardNumber) {
-        String digits = cardNumber.replaceAll("\\D", "");
-
-        if (digits.startsWith("4")) return "VISA";
-        if (digits.startsWith("5")) return "MASTERCARD";
-        if (digits.startsWith("34") || digits.startsWith("37")) return "AMEX";
-        if (digits.startsWith("6")) return "DISCOVER";
+    public static String getCardType(CharSequence cardNumber) {
+        char first = 0;
+        for (int i = 0; i < cardNumber.length(); i++) {
+            char c = cardNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                continue;
+            }
+            if (first == 0) {
+                first = c;
+                if (first != '3') {
+                    break;
+                }
+                continue;
+            }
+            return c == '4' || c == '7' ? "AMEX" : "UNKNOWN";
+        }
 
-        return "UNKNOWN";
+        return switch (first) {
+            case '4' -> "VISA";
+            case '5' -> "MASTERCARD";
+            case '6' -> "DISCOVER";
+            default -> "UNKNOWN";
+        };
     }
-}
\ No newline at end of file
+}
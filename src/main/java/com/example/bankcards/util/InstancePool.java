@@ -0,0 +1,37 @@
+package com.example.bankcards.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * A small bounded pool of instances that are expensive to set up and not thread-safe, such as a
+ * {@link javax.crypto.Cipher} or {@link javax.crypto.Mac}. A {@link ThreadLocal} would never hit with virtual
+ * threads, where every request starts on a fresh thread. A caller borrows an idle instance, or gets a new one
+ * when all are in use, and releases it when done. Instances released into a full pool are dropped, so the pool
+ * never holds more than its capacity. An instance left in an unknown state by a failure is simply not released.
+ */
+public class InstancePool<T> {
+
+    private final BlockingQueue<T> idle;
+    private final Supplier<T> factory;
+
+    public InstancePool(int capacity, Supplier<T> factory) {
+        this.idle = new ArrayBlockingQueue<>(capacity);
+        this.factory = factory;
+    }
+
+    /** A pool sized to the processors, the most CPU-bound work that can run at once. */
+    public static <T> InstancePool<T> perProcessor(Supplier<T> factory) {
+        return new InstancePool<>(Runtime.getRuntime().availableProcessors(), factory);
+    }
+
+    public T borrow() {
+        T instance = idle.poll();
+        return instance != null ? instance : factory.get();
+    }
+
+    public void release(T instance) {
+        idle.offer(instance);
+    }
+}
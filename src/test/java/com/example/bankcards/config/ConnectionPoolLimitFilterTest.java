@@ -0,0 +1,115 @@
+package com.example.bankcards.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void doFilter_PermitAvailable_PassesAndReleases() throws Exception {
+        ConnectionPoolLimitFilter filter = new ConnectionPoolLimitFilter(1, 0, meterRegistry);
+
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/cards"), response, (req, res) -> { });
+            assertEquals(200, response.getStatus());
+        }
+        assertEquals(1, meterRegistry.get("bank.http.limiter.available").gauge().value());
+    }
+
+    @Test
+    void doFilter_NoPermitInTime_Returns503() throws Exception {
+        ConnectionPoolLimitFilter filter = new ConnectionPoolLimitFilter(1, 50, meterRegistry);
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain blocking = (req, res) -> {
+            inside.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        Thread holder = Thread.ofVirtual().start(() -> {
+            try {
+                filter.doFilter(new MockHttpServletRequest("GET", "/api/cards"), new MockHttpServletResponse(), blocking);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(inside.await(5, TimeUnit.SECONDS));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/cards"), response,
+                (req, res) -> fail("Request must not reach the chain"));
+
+        assertEquals(503, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+        assertEquals(1, meterRegistry.get("bank.http.limiter.rejected").counter().count());
+
+        release.countDown();
+        holder.join();
+    }
+
+    @Test
+    void doFilter_AsyncRequest_HoldsPermitUntilComplete() throws Exception {
+        ConnectionPoolLimitFilter filter = new ConnectionPoolLimitFilter(1, 0, meterRegistry);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/cards/import");
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        assertEquals(0, meterRegistry.get("bank.http.limiter.available").gauge().value());
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/cards"), rejected,
+                (req, res) -> fail("Request must not reach the chain"));
+        assertEquals(503, rejected.getStatus());
+
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+
+        assertEquals(1, meterRegistry.get("bank.http.limiter.available").gauge().value());
+    }
+
+    @Test
+    void doFilter_AsyncRequestTimesOut_ReleasesPermitOnce() throws Exception {
+        ConnectionPoolLimitFilter filter = new ConnectionPoolLimitFilter(1, 0, meterRegistry);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/cards/import");
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        MockAsyncContext asyncContext = (MockAsyncContext) request.getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+        asyncContext.complete();
+
+        assertEquals(1, meterRegistry.get("bank.http.limiter.available").gauge().value());
+    }
+
+    @Test
+    void doFilter_Actuator_BypassesLimit() throws Exception {
+        ConnectionPoolLimitFilter filter = new ConnectionPoolLimitFilter(0, 0, meterRegistry);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/actuator/health");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean[] called = {false};
+
+        filter.doFilter(request, response, (req, res) -> called[0] = true);
+
+        assertTrue(called[0]);
+        assertEquals(200, response.getStatus());
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.enums.UserRole;
+import com.example.bankcards.security.AuthenticatedUser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    private static final long MAX_LAG_MS = 1000;
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replicaConnection;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ReadYourWritesTracker readYourWritesTracker = new ReadYourWritesTracker(5000, 1000);
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() {
+        routingDataSource = new ReplicaRoutingDataSource(primary, List.of(replica), readYourWritesTracker, MAX_LAG_MS);
+        routingDataSource.afterPropertiesSet();
+        routingDataSource.bindTo(meterRegistry);
+
+        AuthenticatedUser user = new AuthenticatedUser(1L, "testuser", "password", UserRole.USER, true);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.setCurrentTransactionName(null);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void getConnection_ReadWriteTransaction_UsesPrimary() throws Exception {
+        replicaReportsLag(0);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    void getConnection_ReadOnlyTransaction_UsesReplica() throws Exception {
+        replicaReportsLag(0);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(replicaConnection, routingDataSource.getConnection());
+        assertEquals(1, meterRegistry.get("bank.db.route").tag("target", "replica").counter().count());
+        assertEquals(0, meterRegistry.get("bank.db.replica.lag").gauge().value());
+    }
+
+    @Test
+    void getConnection_RepositoryDefaultReadOnlyTransaction_UsesPrimary() throws Exception {
+        replicaReportsLag(0);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        TransactionSynchronizationManager.setCurrentTransactionName(
+                "org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById");
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    void getConnection_ServiceReadOnlyTransaction_UsesReplica() throws Exception {
+        replicaReportsLag(0);
+        TransactionSynchronizationManager.setCurrentTransactionName(
+                "com.example.bankcards.service.CardService.getMyCards");
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(replicaConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    void getConnection_ReadOnlyAfterOwnWrite_UsesPrimary() throws Exception {
+        replicaReportsLag(0);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        readYourWritesTracker.recordWrite(1L);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        assertEquals(1, meterRegistry.get("bank.db.route").tag("reason", "read-your-writes").counter().count());
+    }
+
+    @Test
+    void getConnection_ReplicaLagging_UsesPrimary() throws Exception {
+        replicaReportsLag(MAX_LAG_MS + 1);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        assertEquals(1, meterRegistry.get("bank.db.route").tag("reason", "replica-lag").counter().count());
+    }
+
+    @Test
+    void getConnection_ReplicaUnavailableOrUnchecked_UsesPrimary() throws Exception {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+
+        when(replica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        routingDataSource.checkLag();
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        assertEquals(Double.NaN, meterRegistry.get("bank.db.replica.lag").gauge().value());
+    }
+
+    private void replicaReportsLag(long lagMillis) throws SQLException {
+        Connection lagConnection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(replica.getConnection()).thenReturn(lagConnection, replicaConnection);
+        when(lagConnection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getDouble(1)).thenReturn((double) lagMillis);
+        routingDataSource.checkLag();
+    }
+}
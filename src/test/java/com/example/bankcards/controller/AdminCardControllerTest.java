@@ -1,12 +1,20 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.LedgerEntryDto;
 import com.example.bankcards.dto.MessageDto;
+import com.example.bankcards.dto.response.LedgerBalanceMismatch;
+import com.example.bankcards.dto.response.LedgerPageResponse;
+import com.example.bankcards.dto.response.LedgerVerificationResponse;
 import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.response.PageResponse;
+import com.example.bankcards.dto.response.TransactionPageResponse;
 import com.example.bankcards.entity.Transaction;
 import com.example.bankcards.enums.CardStatus;
+import com.example.bankcards.enums.LedgerEntryType;
 import com.example.bankcards.enums.TransactionType;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.LedgerService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -16,9 +24,6 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.http.MediaType;
@@ -46,6 +51,9 @@ class AdminCardControllerTest {
     @Mock
     private CardService cardService;
 
+    @Mock
+    private LedgerService ledgerService;
+
     @InjectMocks
     private AdminCardController adminCardController;
 
@@ -86,9 +94,14 @@ class AdminCardControllerTest {
         pageResponse.put("totalPages", 1);
         pageResponse.put("totalElements", 2);
 
-        Page<CardDto> page = new PageImpl<>(Arrays.asList(card1, card2), PageRequest.of(0, 10), 2);
+        PageResponse<CardDto> page = PageResponse.<CardDto>builder()
+                .content(Arrays.asList(card1, card2))
+                .size(10)
+                .totalElements(2L)
+                .totalPages(1)
+                .build();
 
-        when(cardService.getAllCards(any(), any(), any(Pageable.class))).thenReturn(page);
+        when(cardService.getAllCards(any(), any(), any(), any(Pageable.class))).thenReturn(page);
 
         mockMvc.perform(get("/api/admin/cards")
                         .param("page", "0")
@@ -109,15 +122,15 @@ class AdminCardControllerTest {
                 .cardHolder("JOHN DOE")
                 .build();
 
-        Page<CardDto> page = new PageImpl<>(
-                List.of(card),
-                PageRequest.of(0, 10),
-                1
-        );
+        PageResponse<CardDto> page = PageResponse.<CardDto>builder()
+                .content(List.of(card))
+                .size(10)
+                .build();
 
         when(cardService.getAllCards(
                 eq(1L),
                 nullable(CardStatus.class),
+                any(),
                 any(Pageable.class)
         )).thenReturn(page);
 
@@ -139,14 +152,14 @@ class AdminCardControllerTest {
                 .status(CardStatus.ACTIVE)
                 .build();
 
-        Page<CardDto> page = new PageImpl<>(
-                List.of(card1),
-                PageRequest.of(0, 10),
-                1
-        );
+        PageResponse<CardDto> page = PageResponse.<CardDto>builder()
+                .content(List.of(card1))
+                .size(10)
+                .build();
 
 
         when(cardService.getAllCards(
+                any(),
                 any(),
                 any(),
                 any(Pageable.class)
@@ -217,25 +230,93 @@ class AdminCardControllerTest {
                 .type(TransactionType.TRANSFER)
                 .build();
 
-        List<TransactionDto> transactions = Arrays.asList(transaction1, transaction2);
+        TransactionPageResponse page = TransactionPageResponse.builder()
+                .content(Arrays.asList(transaction1, transaction2))
+                .nextCursor("next")
+                .build();
 
-        when(cardService.getCardTransactions(eq(1L))).thenReturn(transactions);
+        when(cardService.getCardTransactions(eq(1L), isNull(), eq(20))).thenReturn(page);
 
         mockMvc.perform(get("/api/admin/cards/1/transactions"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(2))
-                .andExpect(jsonPath("$[0].id").value(1L))
-                .andExpect(jsonPath("$[0].amount").value(100.00))
-                .andExpect(jsonPath("$[1].id").value(2L))
-                .andExpect(jsonPath("$[1].amount").value(50.00));
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].id").value(1L))
+                .andExpect(jsonPath("$.content[0].amount").value(100.00))
+                .andExpect(jsonPath("$.content[1].id").value(2L))
+                .andExpect(jsonPath("$.content[1].amount").value(50.00))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    void getCardTransactions_WithCursor_PassesCursorAndSize() throws Exception {
+        TransactionPageResponse page = TransactionPageResponse.builder()
+                .content(List.of())
+                .build();
+
+        when(cardService.getCardTransactions(eq(1L), eq("abc"), eq(5))).thenReturn(page);
+
+        mockMvc.perform(get("/api/admin/cards/1/transactions")
+                        .param("cursor", "abc")
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(0));
     }
 
     @Test
     void getCardTransactions_NoTransactions_EmptyList() throws Exception {
-        when(cardService.getCardTransactions(eq(1L))).thenReturn(List.of());
+        TransactionPageResponse page = TransactionPageResponse.builder()
+                .content(List.of())
+                .build();
+
+        when(cardService.getCardTransactions(eq(1L), isNull(), eq(20))).thenReturn(page);
 
         mockMvc.perform(get("/api/admin/cards/1/transactions"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(0));
+                .andExpect(jsonPath("$.content.length()").value(0))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void getCardLedger_PassesCursorAndSize() throws Exception {
+        LedgerPageResponse page = LedgerPageResponse.builder()
+                .content(List.of(LedgerEntryDto.builder()
+                        .entryNumber(3L)
+                        .type(LedgerEntryType.DEBIT)
+                        .amount(new BigDecimal("25.00"))
+                        .balanceAfter(new BigDecimal("75.00"))
+                        .build()))
+                .nextCursor("3")
+                .build();
+
+        when(ledgerService.getCardLedger(eq(1L), eq("4"), eq(1))).thenReturn(page);
+
+        mockMvc.perform(get("/api/admin/cards/1/ledger")
+                        .param("cursor", "4")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].entryNumber").value(3))
+                .andExpect(jsonPath("$.content[0].type").value("DEBIT"))
+                .andExpect(jsonPath("$.content[0].balanceAfter").value(75.00))
+                .andExpect(jsonPath("$.nextCursor").value("3"));
+    }
+
+    @Test
+    void verifyLedger_ReturnsReport() throws Exception {
+        LedgerVerificationResponse report = LedgerVerificationResponse.builder()
+                .consistent(false)
+                .balanceMismatches(List.of(LedgerBalanceMismatch.builder()
+                        .cardId(7L)
+                        .cachedBalance(new BigDecimal("10.00"))
+                        .ledgerBalance(new BigDecimal("9.00"))
+                        .build()))
+                .build();
+
+        when(ledgerService.verify()).thenReturn(report);
+
+        mockMvc.perform(get("/api/admin/cards/ledger/verification"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.consistent").value(false))
+                .andExpect(jsonPath("$.balanceMismatches[0].cardId").value(7))
+                .andExpect(jsonPath("$.brokenChainEntries").value(0));
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,9 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.config.PaginationConfig;
 import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.dto.response.PageResponse;
+import com.example.bankcards.enums.PageTotalMode;
 import com.example.bankcards.enums.UserRole;
 import com.example.bankcards.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -10,10 +13,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -23,6 +26,7 @@ import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -41,7 +45,12 @@ class AdminUserControllerTest {
 
     @BeforeEach
     void setUp() {
-        mockMvc = MockMvcBuilders.standaloneSetup(adminUserController).build();
+        PageableHandlerMethodArgumentResolver pageableResolver = new PageableHandlerMethodArgumentResolver();
+        new PaginationConfig().pageableLimits(10, 50).customize(pageableResolver);
+
+        mockMvc = MockMvcBuilders.standaloneSetup(adminUserController)
+                .setCustomArgumentResolvers(pageableResolver)
+                .build();
         objectMapper = new ObjectMapper();
     }
 
@@ -63,11 +72,19 @@ class AdminUserControllerTest {
 
         List<UserDto> content = Arrays.asList(user1, user2);
 
-        Page<UserDto> usersPage = new PageImpl<>(content, PageRequest.of(0, 10), content.size());
+        PageResponse<UserDto> usersPage = PageResponse.<UserDto>builder()
+                .content(content)
+                .page(0)
+                .size(10)
+                .hasNext(false)
+                .totalElements(2L)
+                .totalPages(1)
+                .totalMode(PageTotalMode.ESTIMATED)
+                .build();
 
-        Pageable pageable = PageRequest.of(0, 10);
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("id"));
 
-        when(userService.getAllUsers(pageable)).thenReturn(usersPage);
+        when(userService.getAllUsers(isNull(), eq(pageable))).thenReturn(usersPage);
 
         mockMvc.perform(get("/api/admin/users")
                         .param("page", "0")
@@ -81,7 +98,30 @@ class AdminUserControllerTest {
                 .andExpect(jsonPath("$.content[1].username").value("user2"))
                 .andExpect(jsonPath("$.content[1].role").value("ADMIN"))
                 .andExpect(jsonPath("$.totalElements").value(2))
-                .andExpect(jsonPath("$.totalPages").value(1));
+                .andExpect(jsonPath("$.totalPages").value(1))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    void getAllUsers_OversizedPage_CappedWithoutTotal() throws Exception {
+        Pageable capped = PageRequest.of(0, 50, Sort.by("id"));
+        PageResponse<UserDto> usersPage = PageResponse.<UserDto>builder()
+                .content(List.of())
+                .page(0)
+                .size(50)
+                .hasNext(true)
+                .totalMode(PageTotalMode.NONE)
+                .build();
+
+        when(userService.getAllUsers(PageTotalMode.NONE, capped)).thenReturn(usersPage);
+
+        mockMvc.perform(get("/api/admin/users")
+                        .param("size", "500")
+                        .param("total", "NONE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(50))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
     }
 
     @Test
@@ -1,12 +1,21 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.request.BatchTransferRequest;
 import com.example.bankcards.dto.request.CreateCardRequest;
 import com.example.bankcards.dto.request.TransferRequest;
 import com.example.bankcards.dto.request.UpdateCardRequest;
 import com.example.bankcards.dto.MessageDto;
+import com.example.bankcards.dto.response.BatchTransferItemResult;
+import com.example.bankcards.dto.response.BatchTransferResponse;
 import com.example.bankcards.enums.CardStatus;
+import com.example.bankcards.enums.TransactionStatus;
+import com.example.bankcards.enums.UserRole;
+import com.example.bankcards.security.AuthenticatedUser;
+import com.example.bankcards.service.CardImportService;
+import com.example.bankcards.service.CardMetrics;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.IdempotencyService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,23 +25,28 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.MethodParameter;
 import org.springframework.http.MediaType;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.bind.support.WebDataBinderFactory;
 import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -43,31 +57,37 @@ class CardControllerTest {
     @Mock
     private CardService cardService;
 
+    @Mock
+    private CardImportService cardImportService;
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private CardMetrics cardMetrics;
+
     @InjectMocks
     private CardController cardController;
 
     private MockMvc mockMvc;
     private ObjectMapper objectMapper;
-    private UserDetails userDetails;
+    private AuthenticatedUser currentUser;
 
     @BeforeEach
     void setUp() {
-        userDetails = User.withUsername("test@example.com")
-                .password("password")
-                .authorities("ROLE_USER")
-                .build();
+        currentUser = new AuthenticatedUser(1L, "test@example.com", null, UserRole.USER, true);
 
 
         HandlerMethodArgumentResolver mockUserResolver = new HandlerMethodArgumentResolver() {
             @Override
             public boolean supportsParameter(MethodParameter parameter) {
-                return parameter.getParameterType().isAssignableFrom(UserDetails.class);
+                return parameter.getParameterType().isAssignableFrom(AuthenticatedUser.class);
             }
 
             @Override
             public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
                                           NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
-                return userDetails;
+                return currentUser;
             }
         };
 
@@ -99,7 +119,7 @@ class CardControllerTest {
                 .createdAt(LocalDate.now())
                 .build();
 
-        when(cardService.createCard(any(UserDetails.class), any(CreateCardRequest.class)))
+        when(cardService.createCard(any(AuthenticatedUser.class), any(CreateCardRequest.class)))
                 .thenReturn(response);
 
         mockMvc.perform(post("/api/cards")
@@ -128,7 +148,7 @@ class CardControllerTest {
 
         List<CardDto> cards = Arrays.asList(card1, card2);
 
-        when(cardService.getMyCards(any(UserDetails.class))).thenReturn(cards);
+        when(cardService.getMyCards(any(AuthenticatedUser.class))).thenReturn(cards);
 
         mockMvc.perform(get("/api/cards")
                         .principal(() -> "test@example.com"))
@@ -140,7 +160,7 @@ class CardControllerTest {
 
     @Test
     void getAllCards_NoCards_EmptyList() throws Exception {
-        when(cardService.getMyCards(any(UserDetails.class))).thenReturn(Collections.emptyList());
+        when(cardService.getMyCards(any(AuthenticatedUser.class))).thenReturn(Collections.emptyList());
 
         mockMvc.perform(get("/api/cards")
                         .principal(() -> "test@example.com"))
@@ -152,7 +172,7 @@ class CardControllerTest {
     void deleteCard_Success() throws Exception {
         MessageDto response = new MessageDto("Card deleted successfully");
 
-        when(cardService.deleteCard(any(UserDetails.class), eq(1L))).thenReturn(response);
+        when(cardService.deleteCard(any(AuthenticatedUser.class), eq(1L))).thenReturn(response);
 
         mockMvc.perform(delete("/api/cards/1")
                         .principal(() -> "test@example.com"))
@@ -168,7 +188,7 @@ class CardControllerTest {
                 .cardHolder("JOHN DOE")
                 .build();
 
-        when(cardService.getCardById(any(UserDetails.class), eq(1L))).thenReturn(card);
+        when(cardService.getCardById(any(AuthenticatedUser.class), eq(1L))).thenReturn(card);
 
 
         mockMvc.perform(get("/api/cards/1")
@@ -190,7 +210,7 @@ class CardControllerTest {
                 .cardHolder("JOHN SMITH")
                 .build();
 
-        when(cardService.updateCard(any(UserDetails.class), eq(1L), any(UpdateCardRequest.class)))
+        when(cardService.updateCard(any(AuthenticatedUser.class), eq(1L), any(UpdateCardRequest.class)))
                 .thenReturn(response);
 
         mockMvc.perform(put("/api/cards/1")
@@ -206,7 +226,7 @@ class CardControllerTest {
     void requestBlockCard_Success() throws Exception {
         MessageDto response = new MessageDto("Card blocked successfully");
 
-        when(cardService.requestBlockCard(any(UserDetails.class), eq(1L))).thenReturn(response);
+        when(cardService.requestBlockCard(any(AuthenticatedUser.class), eq(1L))).thenReturn(response);
 
         mockMvc.perform(post("/api/cards/1/block-request")
                         .principal(() -> "test@example.com"))
@@ -224,15 +244,121 @@ class CardControllerTest {
 
         MessageDto response = new MessageDto("Transfer successfully");
 
-        when(cardService.transfer(any(UserDetails.class), any(TransferRequest.class)))
+        when(cardService.transfer(any(AuthenticatedUser.class), any(TransferRequest.class), isNull()))
+                .thenReturn(response);
+
+        mockMvc.perform(post("/api/cards/transaction")
+                        .principal(() -> "test@example.com")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.message").value("Transfer successfully"));
+    }
+
+    @Test
+    void transfer_WithIdempotencyKey_PassesKeyToService() throws Exception {
+        TransferRequest request = TransferRequest.builder()
+                .fromCardId(1L)
+                .toCardId(2L)
+                .amount(new BigDecimal("100.00"))
+                .build();
+
+        MessageDto response = new MessageDto("Transfer successfully");
+
+        when(cardService.transfer(any(AuthenticatedUser.class), any(TransferRequest.class), eq("key-1")))
                 .thenReturn(response);
 
         mockMvc.perform(post("/api/cards/transaction")
                         .principal(() -> "test@example.com")
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.message").value("Transfer successfully"));
+    }
+
+    @Test
+    void transfer_CachedReplay_SkipsTheTransactionalService() throws Exception {
+        TransferRequest request = TransferRequest.builder()
+                .fromCardId(1L)
+                .toCardId(2L)
+                .amount(new BigDecimal("100.00"))
+                .build();
+
+        when(idempotencyService.replayIfCached(eq("test@example.com"), eq("key-1"), any(TransferRequest.class)))
+                .thenReturn(Optional.of(new MessageDto("Transfer successfully")));
+
+        mockMvc.perform(post("/api/cards/transaction")
+                        .principal(() -> "test@example.com")
+                        .header("Idempotency-Key", "key-1")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.message").value("Transfer successfully"));
+
+        verify(cardService, never()).transfer(any(), any(), any());
+        verify(cardMetrics).recordTransfer(any(), eq(CardMetrics.TransferOutcome.REPLAYED));
+    }
+
+    @Test
+    void transferBatch_Success() throws Exception {
+        BatchTransferRequest request = BatchTransferRequest.builder()
+                .transfers(List.of(
+                        TransferRequest.builder().fromCardId(1L).toCardId(2L).amount(new BigDecimal("100.00")).build(),
+                        TransferRequest.builder().fromCardId(2L).toCardId(1L).amount(new BigDecimal("900.00")).build()))
+                .build();
+
+        BatchTransferResponse response = BatchTransferResponse.builder()
+                .completed(1)
+                .failed(1)
+                .results(List.of(
+                        BatchTransferItemResult.builder().index(0).status(TransactionStatus.COMPLETED).build(),
+                        BatchTransferItemResult.builder().index(1).status(TransactionStatus.FAILED)
+                                .message("Not enough money").build()))
+                .build();
+
+        when(cardService.transferBatch(any(AuthenticatedUser.class), anyList())).thenReturn(response);
+
+        mockMvc.perform(post("/api/cards/transactions/batch")
+                        .principal(() -> "test@example.com")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.completed").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results[1].status").value("FAILED"))
+                .andExpect(jsonPath("$.results[1].message").value("Not enough money"));
+    }
+
+    @Test
+    void importCards_StreamsReport() throws Exception {
+        StreamingResponseBody report = output -> output.write(
+                "{\"line\":1,\"status\":\"CREATED\"}\n".getBytes(StandardCharsets.UTF_8));
+        when(cardImportService.importCards(any(AuthenticatedUser.class), any(InputStream.class))).thenReturn(report);
+
+        MvcResult result = mockMvc.perform(post("/api/cards/import")
+                        .contentType("application/x-ndjson")
+                        .content("{\"encryptedCardNumber\":\"enc\"}\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(content().string("{\"line\":1,\"status\":\"CREATED\"}\n"));
+    }
+
+    @Test
+    void transferBatch_EmptyBatch_BadRequest() throws Exception {
+        BatchTransferRequest request = BatchTransferRequest.builder()
+                .transfers(List.of())
+                .build();
+
+        mockMvc.perform(post("/api/cards/transactions/batch")
+                        .principal(() -> "test@example.com")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
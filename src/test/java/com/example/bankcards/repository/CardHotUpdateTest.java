@@ -0,0 +1,64 @@
+package com.example.bankcards.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Balance changes must stay heap-only tuple (HOT) updates: an index on a column the transfer writes, or a
+ * {@code cards} fillfactor leaving no room in the page, turns every debit and credit into an index insert.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.liquibase.parameters.card.hash.salt=" + EmbeddedPostgresTestConfig.CARD_HASH_SALT
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(EmbeddedPostgresTestConfig.class)
+class CardHotUpdateTest {
+
+    private static final int CARDS = 600;
+    private static final int UPDATED_EVERY = 30;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Test
+    void debitAndCredit_AreHotUpdates() {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        Long userId = jdbc.queryForObject("""
+                INSERT INTO users (username, email, password, role, enabled)
+                VALUES ('hot-update-owner', 'hot-update-owner@example.com', 'password', 'USER', true)
+                RETURNING id
+                """, Long.class);
+        jdbc.update("""
+                INSERT INTO cards (card_fingerprint, last_four_digits, card_holder, expiry_date, status, balance, user_id)
+                SELECT sha256(int8send(-i)), '0000', 'CARD HOLDER', CURRENT_DATE + 365, 'ACTIVE', 1000, ?
+                FROM generate_series(1, ?) i
+                """, userId, CARDS);
+        List<Long> cardIds = jdbc.queryForList("SELECT id FROM cards WHERE user_id = ? ORDER BY id", Long.class, userId);
+
+        int updates = 0;
+        for (int i = 0; i < cardIds.size(); i += UPDATED_EVERY) {
+            updates += cardRepository.debit(cardIds.get(i), BigDecimal.TEN).isPresent() ? 1 : 0;
+            updates += cardRepository.credit(cardIds.get(i), BigDecimal.ONE).isPresent() ? 1 : 0;
+        }
+
+        assertEquals(2 * CARDS / UPDATED_EVERY, updates);
+        assertEquals(updates, jdbc.queryForObject(
+                "SELECT pg_stat_get_xact_tuples_updated(CAST('cards' AS regclass))", Long.class));
+        assertEquals(updates, jdbc.queryForObject(
+                "SELECT pg_stat_get_xact_tuples_hot_updated(CAST('cards' AS regclass))", Long.class));
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.bankcards.repository;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.io.IOException;
+
+/**
+ * An embedded PostgreSQL for {@code @DataJpaTest}s that need the real database. Tests importing it with the
+ * same properties share one Spring context and so one server.
+ */
+@TestConfiguration
+class EmbeddedPostgresTestConfig {
+
+    static final String CARD_HASH_SALT = "7oaOj1g1AfLbcRJlRhXQbAtYF3Slsqjz";
+
+    @Bean(destroyMethod = "close")
+    EmbeddedPostgres embeddedPostgres() throws IOException {
+        return EmbeddedPostgres.builder().start();
+    }
+
+    @Bean
+    PlanCapturingDataSource dataSource(EmbeddedPostgres embeddedPostgres) {
+        HikariConfig config = new HikariConfig();
+        config.setDataSource(embeddedPostgres.getPostgresDatabase());
+        config.setMaximumPoolSize(4);
+        return new PlanCapturingDataSource(new HikariDataSource(config));
+    }
+}
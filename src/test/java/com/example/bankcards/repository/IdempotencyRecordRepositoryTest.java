@@ -0,0 +1,105 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.IdempotencyRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Claiming an idempotency key against the real unique constraint: a live key is claimed once, an expired one
+ * can be claimed again, and a concurrent claim waits for the first transfer's transaction and then sees its
+ * response. Transactions are committed, so every test uses a fresh key.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.liquibase.parameters.card.hash.salt=" + EmbeddedPostgresTestConfig.CARD_HASH_SALT
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(EmbeddedPostgresTestConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyRecordRepositoryTest {
+
+    private static final String OWNER = "idempotency-owner";
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private String key;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        key = UUID.randomUUID().toString();
+    }
+
+    @Test
+    void claim_LiveKeyOnce_ExpiredKeyAgain() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertEquals(1, claim(new byte[]{1}, now, now.plusHours(1)));
+        assertEquals(0, claim(new byte[]{2}, now, now.plusHours(1)));
+        assertEquals(1, claim(new byte[]{2}, now.plusHours(2), now.plusHours(3)));
+
+        IdempotencyRecord record = idempotencyRecordRepository.findByOwnerAndIdempotencyKey(OWNER, key).orElseThrow();
+        assertEquals(2, record.getRequestHash()[0]);
+    }
+
+    @Test
+    void claim_ConcurrentDuplicate_WaitsForFirstTransferAndSeesItsResponse() throws Exception {
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> transaction.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            idempotencyRecordRepository.claim(OWNER, key, new byte[]{1}, now, now.plusHours(1));
+            idempotencyRecordRepository.complete(OWNER, key, "Transfer successfully");
+            claimed.countDown();
+            await(release);
+        }));
+        claimed.await(10, TimeUnit.SECONDS);
+
+        CompletableFuture<String> duplicate = CompletableFuture.supplyAsync(() -> transaction.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            int claimedRows = idempotencyRecordRepository.claim(OWNER, key, new byte[]{1}, now, now.plusHours(1));
+            return claimedRows + ":" + idempotencyRecordRepository.findByOwnerAndIdempotencyKey(OWNER, key)
+                    .orElseThrow().getResponseMessage();
+        }));
+        Thread.sleep(200);
+        assertFalse(duplicate.isDone());
+
+        release.countDown();
+        first.get(10, TimeUnit.SECONDS);
+        assertEquals("0:Transfer successfully", duplicate.get(10, TimeUnit.SECONDS));
+    }
+
+    private int claim(byte[] requestHash, LocalDateTime now, LocalDateTime expiresAt) {
+        return transaction.execute(status -> idempotencyRecordRepository.claim(OWNER, key, requestHash, now, expiresAt));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.LedgerEntry;
+import com.example.bankcards.entity.Transaction;
+import com.example.bankcards.enums.LedgerEntryType;
+import com.example.bankcards.enums.TransactionType;
+import com.example.bankcards.repository.CardRepository.BalanceChange;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The ledger against the real schema: entries are append-only, and verification finds a card whose cached
+ * balance or entry chain no longer matches. Other tests sharing the database leave rows behind, so counts
+ * are compared before and after.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.liquibase.parameters.card.hash.salt=" + EmbeddedPostgresTestConfig.CARD_HASH_SALT
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(EmbeddedPostgresTestConfig.class)
+class LedgerEntryRepositoryTest {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("40.00");
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    private JdbcTemplate jdbc;
+    private Card fromCard;
+    private Card toCard;
+    private Transaction transaction;
+
+    @BeforeEach
+    void transfer() {
+        jdbc = new JdbcTemplate(dataSource);
+        Long userId = jdbc.queryForObject("""
+                INSERT INTO users (username, email, password, role, enabled)
+                VALUES ('ledger-owner', 'ledger-owner@example.com', 'password', 'USER', true)
+                RETURNING id
+                """, Long.class);
+        List<Long> cardIds = jdbc.queryForList("""
+                INSERT INTO cards (card_fingerprint, last_four_digits, card_holder, expiry_date, status, user_id)
+                SELECT sha256(int8send(-1000000 - i)), '0000', 'CARD HOLDER', CURRENT_DATE + 365, 'ACTIVE', ?
+                FROM generate_series(1, 2) i
+                RETURNING id
+                """, Long.class, userId);
+        fromCard = cardRepository.findById(cardIds.get(0)).orElseThrow();
+        toCard = cardRepository.findById(cardIds.get(1)).orElseThrow();
+
+        BalanceChange opened = cardRepository.credit(fromCard.getId(), new BigDecimal("100.00")).orElseThrow();
+        ledgerEntryRepository.save(LedgerEntry.builder()
+                .card(fromCard)
+                .type(LedgerEntryType.OPENING)
+                .amount(new BigDecimal("100.00"))
+                .balanceAfter(opened.getBalance())
+                .entryNumber(opened.getEntryNumber())
+                .build());
+
+        BalanceChange debited = cardRepository.debit(fromCard.getId(), AMOUNT).orElseThrow();
+        BalanceChange credited = cardRepository.credit(toCard.getId(), AMOUNT).orElseThrow();
+        transaction = transactionRepository.save(Transaction.builder()
+                .fromCard(fromCard)
+                .toCard(toCard)
+                .amount(AMOUNT)
+                .type(TransactionType.TRANSFER)
+                .build());
+        ledgerEntryRepository.saveAll(List.of(
+                entry(fromCard, LedgerEntryType.DEBIT, debited),
+                entry(toCard, LedgerEntryType.CREDIT, credited)));
+        entityManager.flush();
+    }
+
+    @Test
+    void transfer_KeepsBalancesAndChainsConsistent() {
+        assertTrue(mismatchedCards().isEmpty());
+        assertEquals(List.of(new BigDecimal("60.00"), new BigDecimal("40.00")), jdbc.queryForList(
+                "SELECT balance FROM cards WHERE id IN (?, ?) ORDER BY id", BigDecimal.class, fromCard.getId(), toCard.getId()));
+
+        List<Long> history = ledgerEntryRepository.findByCardIdBefore(fromCard.getId(), Long.MAX_VALUE, PageRequest.of(0, 10))
+                .stream().map(entry -> entry.getEntryNumber()).toList();
+        assertEquals(List.of(2L, 1L), history);
+    }
+
+    @Test
+    void verification_FindsTamperedBalanceAndChain() {
+        long brokenChainEntries = ledgerEntryRepository.countBrokenChainEntries();
+        long unbalancedTransactions = ledgerEntryRepository.countUnbalancedTransactions();
+
+        jdbc.update("UPDATE cards SET balance = balance + 1 WHERE id = ?", toCard.getId());
+        ledgerEntryRepository.save(LedgerEntry.builder()
+                .card(fromCard)
+                .transaction(transaction)
+                .type(LedgerEntryType.CREDIT)
+                .amount(BigDecimal.ONE)
+                .balanceAfter(new BigDecimal("61.00"))
+                .entryNumber(4L)
+                .build());
+        entityManager.flush();
+
+        assertEquals(List.of(fromCard.getId(), toCard.getId()), mismatchedCards());
+        assertEquals(brokenChainEntries + 1, ledgerEntryRepository.countBrokenChainEntries());
+        assertEquals(unbalancedTransactions + 1, ledgerEntryRepository.countUnbalancedTransactions());
+    }
+
+    @Test
+    void renamingCardLoadedBeforeTransfer_KeepsTransferredBalance() {
+        entityManager.clear();
+        Card renamed = cardRepository.findById(toCard.getId()).orElseThrow();
+
+        // A transfer lands between the rename's read and its save.
+        BalanceChange credited = cardRepository.credit(toCard.getId(), AMOUNT).orElseThrow();
+        renamed.setCardHolder("RENAMED HOLDER");
+        cardRepository.saveAndFlush(renamed);
+
+        assertEquals(new BigDecimal("80.00"), credited.getBalance());
+        assertEquals(Map.of("balance", new BigDecimal("80.00"), "last_entry_number", 2L, "card_holder", "RENAMED HOLDER"),
+                jdbc.queryForMap("SELECT balance, last_entry_number, card_holder FROM cards WHERE id = ?", toCard.getId()));
+        assertEquals(3L, cardRepository.credit(toCard.getId(), AMOUNT).orElseThrow().getEntryNumber());
+    }
+
+    @Test
+    void entries_CannotBeUpdated() {
+        assertThrows(DataAccessException.class, () -> jdbc.update(
+                "UPDATE ledger_entries SET amount = amount + 1 WHERE card_id = ?", toCard.getId()));
+    }
+
+    @Test
+    void entries_CannotBeDeletedDirectly() {
+        assertThrows(DataAccessException.class, () -> jdbc.update(
+                "DELETE FROM ledger_entries WHERE card_id = ?", toCard.getId()));
+    }
+
+    @Test
+    void cardWithEntries_CannotBeDeleted() {
+        assertThrows(DataAccessException.class, () -> jdbc.update("DELETE FROM cards WHERE id = ?", toCard.getId()));
+    }
+
+    private List<Long> mismatchedCards() {
+        return ledgerEntryRepository.findBalanceMismatches(PageRequest.of(0, Integer.MAX_VALUE)).stream()
+                .map(LedgerEntryRepository.BalanceMismatch::getCardId)
+                .filter(cardId -> cardId.equals(fromCard.getId()) || cardId.equals(toCard.getId()))
+                .toList();
+    }
+
+    private LedgerEntry entry(Card card, LedgerEntryType type, BalanceChange change) {
+        return LedgerEntry.builder()
+                .card(card)
+                .transaction(transaction)
+                .type(type)
+                .amount(AMOUNT)
+                .balanceAfter(change.getBalance())
+                .entryNumber(change.getEntryNumber())
+                .build();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.bankcards.repository;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * While {@link #capture} runs, explains every prepared statement with {@code EXPLAIN (FORMAT JSON)} just before
+ * it executes, on the same connection and with the same bound parameters, so the plan is the one PostgreSQL
+ * would pick for that exact call.
+ */
+class PlanCapturingDataSource extends DelegatingDataSource {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate");
+
+    private final ThreadLocal<List<CapturedPlan>> plans = new ThreadLocal<>();
+
+    record CapturedPlan(String sql, String json) {
+    }
+
+    private record ParameterCall(Method method, Object[] args) {
+    }
+
+    PlanCapturingDataSource(DataSource target) {
+        super(target);
+    }
+
+    List<CapturedPlan> capture(Runnable action) {
+        plans.set(new ArrayList<>());
+        try {
+            action.run();
+            return plans.get();
+        } finally {
+            plans.remove();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (method.getName().equals("prepareStatement")) {
+                        return wrap(connection, (PreparedStatement) result, (String) args[0]);
+                    }
+                    return result;
+                });
+    }
+
+    private PreparedStatement wrap(Connection connection, PreparedStatement statement, String sql) {
+        List<ParameterCall> parameters = new ArrayList<>();
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                        parameters.add(new ParameterCall(method, args));
+                    } else if (name.equals("clearParameters")) {
+                        parameters.clear();
+                    } else if (EXECUTE_METHODS.contains(name) && args == null && plans.get() != null) {
+                        plans.get().add(new CapturedPlan(sql, explain(connection, sql, parameters)));
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private static String explain(Connection connection, String sql, List<ParameterCall> parameters) throws Exception {
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN (FORMAT JSON) " + sql)) {
+            for (ParameterCall parameter : parameters) {
+                parameter.method().invoke(explain, parameter.args());
+            }
+            try (ResultSet resultSet = explain.executeQuery()) {
+                resultSet.next();
+                return resultSet.getString(1);
+            }
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.enums.CardStatus;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Runs every repository query against an embedded PostgreSQL seeded with a few hundred thousand rows and checks
+ * the plan PostgreSQL picks for it ({@code EXPLAIN (FORMAT JSON)} with the real bound parameters). Each query
+ * lists the indexes it is expected to read; a sequential scan, or a plan reading other indexes, fails the test.
+ * Queries that read a whole table by design are declared with {@link #fullScan}.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.liquibase.parameters.card.hash.salt=" + EmbeddedPostgresTestConfig.CARD_HASH_SALT
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(EmbeddedPostgresTestConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class QueryPlanTest {
+
+    private static final String SEED = """
+            INSERT INTO users (username, email, password, role, enabled)
+            SELECT 'user' || i, 'user' || i || '@example.com', 'password', 'USER', true
+            FROM generate_series(1, 5000) i;
+
+            INSERT INTO cards (card_fingerprint, last_four_digits, card_holder, expiry_date, status, balance, user_id)
+            SELECT sha256(int8send(u.id * 10 + n)), lpad(((u.id * 10 + n) % 10000)::text, 4, '0'), 'CARD HOLDER',
+                   CURRENT_DATE + n * 365, CASE WHEN (u.id + n) % 20 = 0 THEN 'BLOCKED' ELSE 'ACTIVE' END, 1000, u.id
+            FROM users u CROSS JOIN generate_series(1, 4) n;
+
+            INSERT INTO transactions (transaction_id, from_card_id, to_card_id, amount, type, status, created_at)
+            SELECT gen_random_uuid(), CASE WHEN i % 10 = 0 THEN NULL ELSE c.ids[1 + (i * 7919) % c.n] END,
+                   c.ids[1 + (i * 104729) % c.n], 10, 'TRANSFER', 'COMPLETED', CURRENT_DATE - (i % 365)::int
+            FROM generate_series(1::bigint, 200000) i,
+                 (SELECT array_agg(id ORDER BY id) AS ids, count(*) AS n FROM cards) c;
+
+            INSERT INTO ledger_entries (card_id, entry_number, entry_type, amount, balance_after)
+            SELECT id, 1, 'OPENING', balance, balance FROM cards WHERE last_entry_number = 0;
+
+            INSERT INTO ledger_entries (card_id, entry_number, transaction_id, entry_type, amount, balance_after)
+            SELECT leg.card_id, 1 + row_number() OVER (PARTITION BY leg.card_id ORDER BY leg.transaction_id, leg.entry_type),
+                   leg.transaction_id, leg.entry_type, 10, 1000
+            FROM (SELECT from_card_id AS card_id, id AS transaction_id, 'DEBIT' AS entry_type
+                  FROM transactions WHERE from_card_id IS NOT NULL
+                  UNION ALL
+                  SELECT to_card_id, id, 'CREDIT' FROM transactions) leg;
+
+            INSERT INTO idempotency_keys (owner, idempotency_key, request_hash, response_message, created_at, expires_at)
+            SELECT 'user' || i % 5000, md5(i::text), sha256(int8send(i)), 'Transfer completed successfully', now(),
+                   now() + CASE WHEN i % 100 = 0 THEN interval '-1 hour' ELSE interval '23 hours' END
+            FROM generate_series(1, 20000) i;
+
+            ANALYZE;
+            """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private PlanCapturingDataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    private record PlanCase(String name, Runnable query, Set<String> expectedAccess) {
+    }
+
+    @TestFactory
+    Stream<DynamicTest> repositoryQueries() {
+        new JdbcTemplate(dataSource).execute(SEED);
+
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        Long userId = jdbc.queryForObject("SELECT max(user_id) FROM cards", Long.class);
+        Long cardId = jdbc.queryForObject("SELECT max(id) FROM cards WHERE user_id = ?", Long.class, userId);
+        Long otherCardId = jdbc.queryForObject("SELECT min(id) FROM cards WHERE user_id = ?", Long.class, userId);
+        byte[] fingerprint = jdbc.queryForObject("SELECT card_fingerprint FROM cards WHERE id = ?", byte[].class, cardId);
+        LocalDateTime oneMonthAgo = LocalDateTime.now().minusMonths(1);
+        PageRequest page = PageRequest.of(2, 20, Sort.by("id"));
+        PageRequest limit = PageRequest.of(0, 21);
+        // A seeded key of user42, so claim takes the ON CONFLICT path and complete finds its row.
+        String liveKey = jdbc.queryForObject("SELECT md5('42')", String.class);
+
+        return Stream.of(
+                        indexScan("CardRepository.existsByCardFingerprint",
+                                () -> cardRepository.existsByCardFingerprint(fingerprint),
+                                "uk_cards_card_fingerprint"),
+                        indexScan("CardRepository.findExistingCardFingerprints",
+                                () -> cardRepository.findExistingCardFingerprints(List.of(fingerprint, new byte[32])),
+                                "uk_cards_card_fingerprint"),
+                        fullScan("CardRepository.streamAllCardFingerprints",
+                                () -> {
+                                    try (Stream<byte[]> fingerprints = cardRepository.streamAllCardFingerprints()) {
+                                        fingerprints.count();
+                                    }
+                                },
+                                "cards"),
+                        indexScan("CardRepository.findAllByUserId",
+                                () -> cardRepository.findAllByUserId(userId),
+                                "idx_cards_user_id_status"),
+                        indexScan("CardRepository.existsByIdAndUserId",
+                                () -> cardRepository.existsByIdAndUserId(cardId, userId),
+                                "cards_pkey"),
+                        indexScan("CardRepository.findAllByIdInAndUserId",
+                                () -> cardRepository.findAllByIdInAndUserId(List.of(cardId, otherCardId), userId),
+                                "cards_pkey"),
+                        indexScan("CardRepository.findSliceByUserIdAndStatus",
+                                () -> cardRepository.findSliceByUserIdAndStatus(userId, CardStatus.ACTIVE, page),
+                                "idx_cards_user_id_status"),
+                        indexScan("CardRepository.findSliceByUserId",
+                                () -> cardRepository.findSliceByUserId(userId, page),
+                                "idx_cards_user_id_status"),
+                        indexScan("CardRepository.findSliceByStatus",
+                                () -> cardRepository.findSliceByStatus(CardStatus.BLOCKED, page),
+                                "cards_pkey"),
+                        indexScan("CardRepository.findSliceBy",
+                                () -> cardRepository.findSliceBy(page),
+                                "cards_pkey"),
+                        indexScan("CardRepository.countByUserIdAndStatus",
+                                () -> cardRepository.countByUserIdAndStatus(userId, CardStatus.ACTIVE),
+                                "idx_cards_user_id_status"),
+                        indexScan("CardRepository.countByUserId",
+                                () -> cardRepository.countByUserId(userId),
+                                "idx_cards_user_id_status"),
+                        indexScan("CardRepository.countByStatus",
+                                () -> cardRepository.countByStatus(CardStatus.BLOCKED),
+                                "idx_cards_status"),
+                        fullScan("CardRepository.count",
+                                () -> cardRepository.count(),
+                                "cards"),
+                        indexScan("CardRepository.estimateCount",
+                                () -> cardRepository.estimateCount(),
+                                "pg_class_oid_index"),
+                        indexScan("CardRepository.findById",
+                                () -> cardRepository.findById(cardId),
+                                "cards_pkey"),
+                        indexScan("CardRepository.findAllByIdInForUpdate",
+                                () -> cardRepository.findAllByIdInForUpdate(List.of(otherCardId, cardId)),
+                                "cards_pkey"),
+                        indexScan("CardRepository.debit",
+                                () -> cardRepository.debit(cardId, BigDecimal.TEN),
+                                "cards_pkey"),
+                        indexScan("CardRepository.credit",
+                                () -> cardRepository.credit(cardId, BigDecimal.TEN),
+                                "cards_pkey"),
+
+                        indexScan("UserRepository.findByUsername",
+                                () -> userRepository.findByUsername("user42"),
+                                "users_username_key"),
+                        indexScan("UserRepository.findByEmail",
+                                () -> userRepository.findByEmail("user42@example.com"),
+                                "users_email_key"),
+                        indexScan("UserRepository.existsByUsernameOrEmail",
+                                () -> userRepository.existsByUsernameOrEmail("user42", "user42@example.com"),
+                                "users_username_key", "users_email_key"),
+                        indexScan("UserRepository.findSliceBy",
+                                () -> userRepository.findSliceBy(page),
+                                "users_pkey"),
+                        indexScan("UserRepository.findById",
+                                () -> userRepository.findById(userId),
+                                "users_pkey"),
+                        indexScan("UserRepository.estimateCount",
+                                () -> userRepository.estimateCount(),
+                                "pg_class_oid_index"),
+
+                        indexScan("TransactionRepository.findLatestByCardId",
+                                () -> transactionRepository.findLatestByCardId(cardId, limit.getPageSize()),
+                                "idx_transactions_from_card_history", "idx_transactions_to_card_history",
+                                "cards_pkey"),
+                        indexScan("TransactionRepository.findByCardIdBefore",
+                                () -> transactionRepository.findByCardIdBefore(cardId, oneMonthAgo.toLocalDate(),
+                                        Long.MAX_VALUE, limit.getPageSize()),
+                                "idx_transactions_from_card_history", "idx_transactions_to_card_history",
+                                "cards_pkey"),
+
+                        indexScan("LedgerEntryRepository.findByCardIdBefore",
+                                () -> ledgerEntryRepository.findByCardIdBefore(cardId, Long.MAX_VALUE, limit),
+                                "uk_ledger_entries_card_entry", "transactions_pkey"),
+                        indexScan("LedgerEntryRepository.findBalanceMismatches",
+                                () -> ledgerEntryRepository.findBalanceMismatches(PageRequest.of(0, 100)),
+                                "cards_pkey", "uk_ledger_entries_card_entry"),
+                        indexScan("LedgerEntryRepository.countBrokenChainEntries",
+                                () -> ledgerEntryRepository.countBrokenChainEntries(),
+                                "uk_ledger_entries_card_entry"),
+                        indexScan("LedgerEntryRepository.countUnbalancedTransactions",
+                                () -> ledgerEntryRepository.countUnbalancedTransactions(),
+                                "idx_ledger_entries_transaction_id"),
+
+                        indexScan("IdempotencyRecordRepository.findByOwnerAndIdempotencyKey",
+                                () -> idempotencyRecordRepository.findByOwnerAndIdempotencyKey("user42", "key"),
+                                "uk_idempotency_keys_owner_key"),
+                        indexScan("IdempotencyRecordRepository.claim",
+                                () -> idempotencyRecordRepository.claim("user42", liveKey, new byte[32],
+                                        LocalDateTime.now(), LocalDateTime.now().plusHours(24)),
+                                "uk_idempotency_keys_owner_key"),
+                        indexScan("IdempotencyRecordRepository.complete",
+                                () -> idempotencyRecordRepository.complete("user42", liveKey, "Transfer successfully"),
+                                "uk_idempotency_keys_owner_key"),
+                        indexScan("IdempotencyRecordRepository.deleteExpired",
+                                () -> idempotencyRecordRepository.deleteExpired(LocalDateTime.now()),
+                                "idx_idempotency_keys_expires_at"))
+                .map(planCase -> DynamicTest.dynamicTest(planCase.name(), () -> check(planCase)));
+    }
+
+    private void check(PlanCase planCase) throws IOException {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<PlanCapturingDataSource.CapturedPlan> plans = dataSource.capture(() -> transaction.executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            planCase.query().run();
+        }));
+
+        Set<String> access = new TreeSet<>();
+        for (PlanCapturingDataSource.CapturedPlan plan : plans) {
+            collectAccess(objectMapper.readTree(plan.json()).get(0).get("Plan"), access);
+        }
+        String explained = plans.stream()
+                .map(plan -> plan.sql() + "\n" + plan.json())
+                .collect(Collectors.joining("\n\n"));
+
+        for (String scan : access) {
+            if (scan.startsWith("seq:") && !planCase.expectedAccess().contains(scan)) {
+                fail("Sequential scan on " + scan.substring(4) + " in " + planCase.name() + ":\n" + explained);
+            }
+        }
+        assertEquals(planCase.expectedAccess(), access, "Plan changed for " + planCase.name() + ":\n" + explained);
+    }
+
+    private static void collectAccess(JsonNode node, Set<String> access) {
+        if (node.path("Node Type").asText().endsWith("Seq Scan")) {
+            access.add("seq:" + node.path("Relation Name").asText());
+        }
+        if (node.has("Index Name")) {
+            access.add(node.get("Index Name").asText());
+        }
+        // INSERT ... ON CONFLICT probes its arbiter index for the conflicting row.
+        for (JsonNode arbiter : node.path("Conflict Arbiter Indexes")) {
+            access.add(arbiter.asText());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectAccess(child, access);
+        }
+    }
+
+    private static PlanCase indexScan(String name, Runnable query, String... indexes) {
+        return new PlanCase(name, query, Set.of(indexes));
+    }
+
+    private static PlanCase fullScan(String name, Runnable query, String table) {
+        return new PlanCase(name, query, Set.of("seq:" + table));
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.config.ReadYourWritesTracker;
+import com.example.bankcards.config.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Real Spring Data repositories behind {@link ReplicaRoutingDataSource}, with the embedded database standing in
+ * as its own replica. Spring Data keeps its default read-only transactions around CRUD methods, so this guards
+ * that those stay on the primary while read-only transactions declared by the application are routed.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.liquibase.parameters.card.hash.salt=" + EmbeddedPostgresTestConfig.CARD_HASH_SALT
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({EmbeddedPostgresTestConfig.class, ReplicaRoutingRepositoryTest.RoutingConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReplicaRoutingRepositoryTest {
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        replicaRoutingDataSource.bindTo(meterRegistry);
+        replicaRoutingDataSource.checkLag();
+    }
+
+    @Test
+    void repositoryDefaultTransaction_StaysOnPrimary() {
+        cardRepository.findById(1L);
+        cardRepository.count();
+
+        assertEquals(0, replicaReads());
+    }
+
+    @Test
+    void declaredReadOnlyTransaction_UsesReplica() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.setName("com.example.bankcards.service.CardService.getMyCards");
+
+        readOnly.executeWithoutResult(status -> cardRepository.findById(1L));
+
+        assertEquals(1, replicaReads());
+    }
+
+    private double replicaReads() {
+        return meterRegistry.get("bank.db.route").tag("target", "replica").counter().count();
+    }
+
+    @TestConfiguration
+    static class RoutingConfig {
+
+        @Bean
+        ReplicaRoutingDataSource replicaRoutingDataSource(PlanCapturingDataSource dataSource,
+                                                          EmbeddedPostgres embeddedPostgres) {
+            HikariConfig config = new HikariConfig();
+            config.setDataSource(embeddedPostgres.getPostgresDatabase());
+            config.setMaximumPoolSize(2);
+            config.setReadOnly(true);
+            return new ReplicaRoutingDataSource(dataSource, List.of(new HikariDataSource(config)),
+                    new ReadYourWritesTracker(5000, 1000), 1000);
+        }
+
+        @Bean
+        @Primary
+        DataSource routingDataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+            return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+        }
+    }
+}
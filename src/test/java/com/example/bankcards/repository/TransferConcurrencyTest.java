@@ -0,0 +1,188 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.config.ReadYourWritesTracker;
+import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.dto.response.BatchTransferResponse;
+import com.example.bankcards.enums.UserRole;
+import com.example.bankcards.security.AuthenticatedUser;
+import com.example.bankcards.service.CardMetrics;
+import com.example.bankcards.service.CardService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Thousands of parallel A-&gt;B / B-&gt;A transfers through {@link CardService} against the real database, at
+ * rising contention: from many card pairs down to a single pair every thread fights over. Balances must be
+ * conserved, every transfer must succeed (a deadlock would surface as a failed transfer) and the ledger must
+ * still add up. Throughput per level is logged at debug level. A single hot pair serializes on its row locks by
+ * design, so throughput may drop as contention rises, but no level may fall below half of the least-contended
+ * one.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.liquibase.parameters.card.hash.salt=" + EmbeddedPostgresTestConfig.CARD_HASH_SALT
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({EmbeddedPostgresTestConfig.class, TransferConcurrencyTest.CardServiceConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Slf4j
+class TransferConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_LEVEL = 1000;
+    private static final int WARM_UP_TRANSFERS = 200;
+    private static final int BATCH_EVERY = 10;
+    private static final int[] PAIRS_PER_LEVEL = {32, 4, 1};
+    private static final double MIN_THROUGHPUT_RATIO = 0.5;
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("10000.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Test
+    void parallelOppositeTransfers_ConserveBalancesAtEveryContentionLevel() throws Exception {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        Long userId = jdbc.queryForObject("""
+                INSERT INTO users (username, email, password, role, enabled)
+                VALUES ('concurrency-owner', 'concurrency-owner@example.com', 'password', 'USER', true)
+                RETURNING id
+                """, Long.class);
+        AuthenticatedUser owner = new AuthenticatedUser(userId, "concurrency-owner", null, UserRole.USER, true);
+
+        // Warms up the JIT and the pool so the first measured level is not penalized.
+        run(owner, openCards(jdbc, userId, PAIRS_PER_LEVEL.length, 2 * PAIRS_PER_LEVEL[0]), WARM_UP_TRANSFERS);
+
+        List<Double> throughputs = new ArrayList<>();
+        for (int level = 0; level < PAIRS_PER_LEVEL.length; level++) {
+            int pairs = PAIRS_PER_LEVEL[level];
+            List<Long> cardIds = openCards(jdbc, userId, level, 2 * pairs);
+
+            long started = System.nanoTime();
+            int transfers = run(owner, cardIds, TRANSFERS_PER_LEVEL);
+            double seconds = (System.nanoTime() - started) / 1e9;
+
+            assertEquals(transfers, jdbc.queryForObject(
+                    "SELECT count(*) FROM transactions WHERE from_card_id = ANY(?)", Integer.class,
+                    (Object) cardIds.toArray(Long[]::new)));
+            assertEquals(OPENING_BALANCE.multiply(BigDecimal.valueOf(cardIds.size())), jdbc.queryForObject(
+                    "SELECT sum(balance) FROM cards WHERE id = ANY(?)", BigDecimal.class,
+                    (Object) cardIds.toArray(Long[]::new)));
+
+            throughputs.add(transfers / seconds);
+            log.debug("Transfer throughput: pairs={}, transfers={}, seconds={}, perSecond={}",
+                    pairs, transfers, String.format("%.2f", seconds), Math.round(transfers / seconds));
+        }
+
+        assertTrue(ledgerEntryRepository.findBalanceMismatches(PageRequest.of(0, 10)).isEmpty());
+        assertEquals(0, ledgerEntryRepository.countBrokenChainEntries());
+        assertEquals(0, ledgerEntryRepository.countUnbalancedTransactions());
+        double leastContended = throughputs.get(0);
+        for (int level = 1; level < throughputs.size(); level++) {
+            assertTrue(throughputs.get(level) >= MIN_THROUGHPUT_RATIO * leastContended,
+                    "Throughput collapsed at " + PAIRS_PER_LEVEL[level] + " pairs: " + throughputs);
+        }
+    }
+
+    private int run(AuthenticatedUser owner, List<Long> cardIds, int operations) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Integer>> completed = new ArrayList<>(operations);
+            for (int i = 0; i < operations; i++) {
+                int operation = i;
+                completed.add(executor.submit(() -> transfer(owner, cardIds, operation)));
+            }
+            int transfers = 0;
+            for (Future<Integer> future : completed) {
+                transfers += future.get(1, TimeUnit.MINUTES);
+            }
+            return transfers;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * One transfer in a random direction within a random pair, or every {@link #BATCH_EVERY}th operation a batch
+     * moving money both ways through the same pair. Returns the number of transfers made.
+     */
+    private int transfer(AuthenticatedUser owner, List<Long> cardIds, int operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int pair = random.nextInt(cardIds.size() / 2);
+        Long a = cardIds.get(2 * pair);
+        Long b = cardIds.get(2 * pair + 1);
+        if (operation % BATCH_EVERY == 0) {
+            BatchTransferResponse response = cardService.transferBatch(owner, List.of(
+                    new TransferRequest(a, b, AMOUNT), new TransferRequest(b, a, AMOUNT)));
+            assertEquals(0, response.getFailed());
+            return response.getCompleted();
+        }
+        TransferRequest request = random.nextBoolean()
+                ? new TransferRequest(a, b, AMOUNT)
+                : new TransferRequest(b, a, AMOUNT);
+        cardService.transfer(owner, request, null);
+        return 1;
+    }
+
+    private List<Long> openCards(JdbcTemplate jdbc, Long userId, int level, int count) {
+        List<Long> cardIds = jdbc.queryForList("""
+                INSERT INTO cards (card_fingerprint, last_four_digits, card_holder, expiry_date, status,
+                                   balance, last_entry_number, user_id)
+                SELECT sha256(int8send(-2000000 - 1000 * ? - i)), '0000', 'CARD HOLDER', CURRENT_DATE + 365,
+                       'ACTIVE', ?, 1, ?
+                FROM generate_series(1, ?) i
+                RETURNING id
+                """, Long.class, level, OPENING_BALANCE, userId, count);
+        jdbc.update("""
+                INSERT INTO ledger_entries (card_id, entry_number, entry_type, amount, balance_after, created_at)
+                SELECT id, 1, 'OPENING', balance, balance, now() FROM cards WHERE id = ANY(?)
+                """, (Object) cardIds.toArray(Long[]::new));
+        return cardIds.stream().sorted().toList();
+    }
+
+    /**
+     * The transfer path with its real repositories; collaborators transfers never touch are left out.
+     */
+    @TestConfiguration
+    static class CardServiceConfig {
+
+        @Bean
+        CardService cardService(UserRepository userRepository, CardRepository cardRepository,
+                                TransactionRepository transactionRepository,
+                                LedgerEntryRepository ledgerEntryRepository) {
+            return new CardService(userRepository, cardRepository, null, null, transactionRepository, null,
+                    null, null, new CardMetrics(new SimpleMeterRegistry()), new ReadYourWritesTracker(5000, 1000),
+                    null, ledgerEntryRepository);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.enums.UserRole;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+    @Mock
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Mock
+    private FilterChain filterChain;
+
+    private JwtTokenProvider jwtTokenProvider;
+    private TokenDenylist tokenDenylist;
+    private SimpleMeterRegistry meterRegistry;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        SecurityContextHolder.clearContext();
+
+        jwtTokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtSecret",
+                "dGVzdC1zZWNyZXQtdGVzdC1zZWNyZXQtdGVzdC1zZWNyZXQtdGVzdC1zZWNyZXQ=");
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtExpirationMs", 3_600_000);
+        jwtTokenProvider.init();
+
+        tokenDenylist = new TokenDenylist(3_600_000);
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new JwtAuthenticationFilter(jwtTokenProvider, userDetailsService, tokenDenylist,
+                new AuthMetrics(meterRegistry));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void statelessAuth_BuildsPrincipalFromClaims() throws Exception {
+        ReflectionTestUtils.setField(filter, "statelessAuth", true);
+
+        filter.doFilter(requestWithToken(tokenFor("user@example.com", true)), new MockHttpServletResponse(), filterChain);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        assertEquals("user@example.com", authentication.getName());
+        assertTrue(authentication.getAuthorities().contains(new SimpleGrantedAuthority("ROLE_USER")));
+        AuthenticatedUser principal = (AuthenticatedUser) authentication.getPrincipal();
+        assertEquals(7L, principal.getId());
+        assertEquals(UserRole.USER, principal.getRole());
+        verifyNoInteractions(userDetailsService);
+        verify(filterChain).doFilter(any(), any());
+        assertEquals(1, meterRegistry.get("bank.auth.filter").tag("outcome", "authenticated").timer().count());
+    }
+
+    @Test
+    void statelessAuth_DisabledClaim_NotAuthenticated() throws Exception {
+        ReflectionTestUtils.setField(filter, "statelessAuth", true);
+
+        filter.doFilter(requestWithToken(tokenFor("user@example.com", false)), new MockHttpServletResponse(), filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(filterChain).doFilter(any(), any());
+        assertEquals(1, meterRegistry.get("bank.auth.filter").tag("outcome", "rejected").timer().count());
+    }
+
+    @Test
+    void revokedToken_NotAuthenticated() throws Exception {
+        ReflectionTestUtils.setField(filter, "statelessAuth", true);
+        String token = tokenFor("user@example.com", true);
+        tokenDenylist.revoke("user@example.com");
+
+        filter.doFilter(requestWithToken(token), new MockHttpServletResponse(), filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void tokenIssuedAfterRevocation_Authenticated() throws Exception {
+        ReflectionTestUtils.setField(filter, "statelessAuth", true);
+        tokenDenylist.revoke("user@example.com");
+        AuthenticatedUser principal = user("user@example.com", true);
+        String token = jwtTokenProvider.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()),
+                tokenDenylist.issueTime("user@example.com"));
+
+        filter.doFilter(requestWithToken(token), new MockHttpServletResponse(), filterChain);
+
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void databaseAuth_LoadsUserDetails() throws Exception {
+        when(userDetailsService.loadAuthenticatedUser("user@example.com")).thenReturn(user("user@example.com", true));
+
+        filter.doFilter(requestWithToken(tokenFor("user@example.com", true)), new MockHttpServletResponse(), filterChain);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        assertNull(((AuthenticatedUser) authentication.getPrincipal()).getPassword());
+        verify(userDetailsService).loadAuthenticatedUser("user@example.com");
+    }
+
+    @Test
+    void statelessAuth_TokenWithoutUserId_NotAuthenticated() throws Exception {
+        ReflectionTestUtils.setField(filter, "statelessAuth", true);
+        UserDetails legacyPrincipal = org.springframework.security.core.userdetails.User.withUsername("user@example.com")
+                .password("")
+                .authorities("ROLE_USER")
+                .build();
+        String token = jwtTokenProvider.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(legacyPrincipal, null, legacyPrincipal.getAuthorities()));
+
+        filter.doFilter(requestWithToken(token), new MockHttpServletResponse(), filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    private String tokenFor(String username, boolean enabled) {
+        AuthenticatedUser principal = user(username, enabled);
+        return jwtTokenProvider.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    private static AuthenticatedUser user(String username, boolean enabled) {
+        return new AuthenticatedUser(7L, username, "encodedPassword", UserRole.USER, enabled);
+    }
+
+    private static MockHttpServletRequest requestWithToken(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.enums.UserRole;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserDetailsServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Spy
+    private UserCache userCache = new UserCache(100, 60);
+
+    @InjectMocks
+    private UserDetailsServiceImpl userDetailsService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = User.builder()
+                .id(1L)
+                .username("user1")
+                .email("user1@example.com")
+                .password("encodedPassword")
+                .role(UserRole.USER)
+                .enabled(true)
+                .build();
+    }
+
+    @Test
+    void loadUserByUsername_SecondCall_ServedFromCache() {
+        when(userRepository.findByUsername("user1")).thenReturn(Optional.of(user));
+
+        userDetailsService.loadUserByUsername("user1");
+        UserDetails result = userDetailsService.loadUserByUsername("user1");
+
+        assertEquals("user1", result.getUsername());
+        verify(userRepository, times(1)).findByUsername("user1");
+        assertEquals(1, userCache.stats().hitCount());
+    }
+
+    @Test
+    void loadUserByUsername_ReturnsPrincipalWithUserId() {
+        when(userRepository.findByUsername("user1")).thenReturn(Optional.of(user));
+
+        AuthenticatedUser result = userDetailsService.loadAuthenticatedUser("user1");
+
+        assertEquals(1L, result.getId());
+        assertEquals(UserRole.USER, result.getRole());
+        assertEquals("encodedPassword", result.getPassword());
+        assertNull(result.withoutPassword().getPassword());
+    }
+
+    @Test
+    void loadUserByUsername_AfterEvict_ReloadsFromDatabase() {
+        when(userRepository.findByUsername("user1")).thenReturn(Optional.of(user));
+
+        userDetailsService.loadUserByUsername("user1");
+        user.setEnabled(false);
+        userCache.evict(user);
+
+        assertFalse(userDetailsService.loadUserByUsername("user1").isEnabled());
+        verify(userRepository, times(2)).findByUsername("user1");
+    }
+
+    @Test
+    void loadUserByUsername_NotFound_NotCached() {
+        when(userRepository.findByUsername("missing")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("missing"));
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("missing"));
+
+        verify(userRepository, times(2)).findByUsername("missing");
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.bankcards.service;
 
-import com.example.bankcards.config.JwtTokenProvider;
+import com.example.bankcards.security.AuthMetrics;
+import com.example.bankcards.security.JwtTokenProvider;
+import com.example.bankcards.security.TokenDenylist;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import com.example.bankcards.dto.request.LoginRequest;
 import com.example.bankcards.dto.request.RegisterRequest;
 import com.example.bankcards.dto.response.LoginResponse;
@@ -13,6 +16,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -46,6 +50,14 @@ class AuthServiceTest {
     @Mock
     private JwtTokenProvider jwtTokenProvider;
 
+    @Mock
+    private TokenDenylist tokenDenylist;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private AuthMetrics authMetrics = new AuthMetrics(meterRegistry);
+
     @InjectMocks
     private AuthService authService;
 
@@ -114,7 +126,7 @@ class AuthServiceTest {
         when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
-        when(jwtTokenProvider.generateJwtToken(any(Authentication.class))).thenReturn("jwt-token");
+        when(jwtTokenProvider.generateJwtToken(any(Authentication.class), any())).thenReturn("jwt-token");
 
         // Act
         LoginResponse response = authService.login(loginRequest);
@@ -127,7 +139,8 @@ class AuthServiceTest {
         verify(userRepository, times(1)).findByUsername(anyString());
         verify(passwordEncoder, times(1)).matches(anyString(), anyString());
         verify(authenticationManager, times(1)).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(jwtTokenProvider, times(1)).generateJwtToken(any(Authentication.class));
+        verify(jwtTokenProvider, times(1)).generateJwtToken(any(Authentication.class), any());
+        assertEquals(1, meterRegistry.get("bank.auth.login").tag("outcome", "success").timer().count());
     }
 
     @Test
@@ -173,5 +186,6 @@ class AuthServiceTest {
         verify(userRepository, times(1)).findByUsername(anyString());
         verify(passwordEncoder, times(1)).matches(anyString(), anyString());
         verify(authenticationManager, never()).authenticate(any());
+        assertEquals(1, meterRegistry.get("bank.auth.login").tag("outcome", "bad_credentials").timer().count());
     }
 }
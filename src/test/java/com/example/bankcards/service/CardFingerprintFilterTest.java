@@ -0,0 +1,82 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.CardFingerprinter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CardFingerprintFilterTest {
+
+    private static final int CARDS = 10_000;
+
+    @Mock
+    private CardRepository cardRepository;
+
+    private final CardFingerprinter cardFingerprinter = new CardFingerprinter("7oaOj1g1AfLbcRJlRhXQbAtYF3Slsqjz");
+
+    @Test
+    void mightContain_BeforeLoad_AlwaysTrue() {
+        CardFingerprintFilter filter = new CardFingerprintFilter(cardRepository, CARDS, 0.01);
+
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightContain(cardFingerprinter.fingerprint("4111111111111111")));
+    }
+
+    @Test
+    void load_StoredCards_NeverReportedMissing() {
+        List<byte[]> stored = fingerprints(0, CARDS);
+        when(cardRepository.streamAllCardFingerprints()).thenReturn(stored.stream());
+        CardFingerprintFilter filter = new CardFingerprintFilter(cardRepository, CARDS, 0.01);
+
+        filter.load();
+
+        assertTrue(filter.isReady());
+        stored.forEach(fingerprint -> assertTrue(filter.mightContain(fingerprint)));
+        assertEquals(CARDS, filter.getApproximateCount(), CARDS * 0.02);
+    }
+
+    @Test
+    void mightContain_UnknownCards_FalsePositiveRateNearTarget() {
+        when(cardRepository.streamAllCardFingerprints()).thenReturn(fingerprints(0, CARDS).stream());
+        CardFingerprintFilter filter = new CardFingerprintFilter(cardRepository, CARDS, 0.01);
+        filter.load();
+
+        long falsePositives = fingerprints(CARDS, 2 * CARDS).stream().filter(filter::mightContain).count();
+        filter.recordFalsePositives(falsePositives);
+
+        assertTrue(falsePositives < CARDS * 0.02, "false positives: " + falsePositives);
+        assertEquals(0.01, filter.getExpectedFalsePositiveRate(), 0.005);
+        assertEquals((double) falsePositives / CARDS, filter.getObservedFalsePositiveRate(), 1e-9);
+        assertTrue(filter.getMemoryBytes() < 16 * 1024);
+    }
+
+    @Test
+    void add_AfterLoad_CardBecomesVisible() {
+        when(cardRepository.streamAllCardFingerprints()).thenReturn(Stream.empty());
+        CardFingerprintFilter filter = new CardFingerprintFilter(cardRepository, CARDS, 0.01);
+        filter.load();
+        byte[] fingerprint = cardFingerprinter.fingerprint("4111111111111111");
+
+        assertFalse(filter.mightContain(fingerprint));
+        filter.add(fingerprint);
+        assertTrue(filter.mightContain(fingerprint));
+    }
+
+    private List<byte[]> fingerprints(int from, int to) {
+        List<byte[]> fingerprints = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            fingerprints.add(cardFingerprinter.fingerprint(String.format("4%015d", i)));
+        }
+        return fingerprints;
+    }
+}
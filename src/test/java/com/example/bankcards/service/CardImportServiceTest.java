@@ -0,0 +1,220 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.ReadYourWritesTracker;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.enums.UserRole;
+import com.example.bankcards.exception.InvalidDataException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.AuthenticatedUser;
+import com.example.bankcards.util.CardFingerprinter;
+import com.example.bankcards.util.CardValidator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardImportServiceTest {
+
+    private static final String VISA = "4111111111111111";
+    private static final String MASTERCARD = "5500000000000004";
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RsaService rsaService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final CardFingerprinter cardFingerprinter = new CardFingerprinter("7oaOj1g1AfLbcRJlRhXQbAtYF3Slsqjz");
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final AtomicLong ids = new AtomicLong();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ReadYourWritesTracker readYourWritesTracker = new ReadYourWritesTracker(5000, 1000);
+    private CardFingerprintFilter cardFingerprintFilter;
+    private CardImportService cardImportService;
+    private AuthenticatedUser currentUser;
+
+    @BeforeEach
+    void setUp() {
+        cardFingerprintFilter = new CardFingerprintFilter(cardRepository, 1000, 0.01);
+        cardImportService = new CardImportService(cardRepository, userRepository, rsaService, new CardValidator(),
+                cardFingerprinter, cardFingerprintFilter, new CardMetrics(meterRegistry), objectMapper, Validation.buildDefaultValidatorFactory().getValidator(), transactionManager, readYourWritesTracker, 2, 2, 100);
+        currentUser = new AuthenticatedUser(1L, "testuser", null, UserRole.USER, true);
+
+        lenient().when(userRepository.getReferenceById(1L)).thenReturn(User.builder().id(1L).build());
+        lenient().when(rsaService.decrypt(anyString())).thenAnswer(invocation ->
+                invocation.<String>getArgument(0).replace("enc:", ""));
+        lenient().when(cardRepository.findExistingCardFingerprints(anyCollection())).thenReturn(List.of());
+        lenient().when(cardRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Card> cards = invocation.getArgument(0);
+            cards.forEach(card -> card.setId(ids.incrementAndGet()));
+            return new ArrayList<>(cards);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        cardImportService.shutdown();
+    }
+
+    @Test
+    void importCards_CreatesCardsInChunksAndReportsEveryLine() throws Exception {
+        List<JsonNode> results = runImport(
+                cardLine(VISA),
+                "",
+                cardLine(MASTERCARD),
+                cardLine("4000000000000002"));
+
+        assertEquals(3, results.size());
+        assertEquals(1, results.get(0).get("line").asInt());
+        assertEquals("CREATED", results.get(0).get("status").asText());
+        assertEquals("**** **** **** 1111", results.get(0).get("maskedNumber").asText());
+        assertEquals(3, results.get(1).get("line").asInt());
+        assertEquals("CREATED", results.get(2).get("status").asText());
+
+        verify(cardRepository, times(2)).saveAll(anyList());
+        verify(cardRepository, times(2)).findExistingCardFingerprints(anyCollection());
+        assertTrue(readYourWritesTracker.hasRecentWrite(1L));
+    }
+
+    @Test
+    void importCards_ExistingAndRepeatedCards_ReportedAsDuplicates() throws Exception {
+        when(cardRepository.findExistingCardFingerprints(anyCollection()))
+                .thenReturn(List.of(cardFingerprinter.fingerprint(MASTERCARD)));
+
+        List<JsonNode> results = runImport(cardLine(VISA), cardLine(MASTERCARD), cardLine(VISA));
+
+        assertEquals("CREATED", results.get(0).get("status").asText());
+        assertEquals("DUPLICATE", results.get(1).get("status").asText());
+        assertEquals("DUPLICATE", results.get(2).get("status").asText());
+        assertEquals(2, meterRegistry.get("bank.card.import.lines").tag("status", "duplicate").counter().count());
+    }
+
+    @Test
+    void importCards_LoadedFilter_SkipsDuplicateQueryForUnknownCards() throws Exception {
+        when(cardRepository.streamAllCardFingerprints())
+                .thenReturn(Stream.of(cardFingerprinter.fingerprint(MASTERCARD)));
+        when(cardRepository.findExistingCardFingerprints(anyCollection()))
+                .thenReturn(List.of(cardFingerprinter.fingerprint(MASTERCARD)));
+        cardFingerprintFilter.load();
+
+        List<JsonNode> results = runImport(cardLine(VISA), cardLine("4000000000000002"), cardLine(MASTERCARD));
+
+        assertEquals("CREATED", results.get(0).get("status").asText());
+        assertEquals("CREATED", results.get(1).get("status").asText());
+        assertEquals("DUPLICATE", results.get(2).get("status").asText());
+        verify(cardRepository, times(1)).findExistingCardFingerprints(anyCollection());
+        assertTrue(cardFingerprintFilter.mightContain(cardFingerprinter.fingerprint(VISA)));
+    }
+
+    @Test
+    void importCards_InvalidLines_ReportedWithoutStoppingImport() throws Exception {
+        List<JsonNode> results = runImport(
+                "{not json",
+                cardLine("4111111111111112"),
+                "{\"encryptedCardNumber\":\"enc:" + VISA + "\"}",
+                cardLine(VISA));
+
+        assertEquals("FAILED", results.get(0).get("status").asText());
+        assertEquals("Malformed JSON", results.get(0).get("message").asText());
+        assertEquals("Invalid card number", results.get(1).get("message").asText());
+        assertEquals("FAILED", results.get(2).get("status").asText());
+        assertEquals("CREATED", results.get(3).get("status").asText());
+    }
+
+    @Test
+    void importCards_SessionKeyHeader_DecryptsWithSessionKey() throws Exception {
+        SecretKey sessionKey = new SecretKeySpec(new byte[16], "AES");
+        when(rsaService.unwrapSessionKey("wrapped")).thenReturn(sessionKey);
+        when(rsaService.decrypt(eq(sessionKey), anyString())).thenAnswer(invocation ->
+                invocation.<String>getArgument(1).replace("enc:", ""));
+
+        List<JsonNode> results = runImport("{\"sessionKey\":\"wrapped\"}", cardLine(VISA));
+
+        assertEquals(1, results.size());
+        assertEquals(2, results.get(0).get("line").asInt());
+        assertEquals("CREATED", results.get(0).get("status").asText());
+        verify(rsaService, never()).decrypt(anyString());
+    }
+
+    @Test
+    void importCards_InvalidSessionKey_StopsImport() throws Exception {
+        when(rsaService.unwrapSessionKey("wrapped")).thenThrow(new InvalidDataException("Bad key"));
+
+        List<JsonNode> results = runImport("{\"sessionKey\":\"wrapped\"}", cardLine(VISA));
+
+        assertEquals(1, results.size());
+        assertEquals("FAILED", results.get(0).get("status").asText());
+        verify(cardRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void importCards_ConcurrentInsert_FallsBackToSingleInserts() throws Exception {
+        when(cardRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(cardRepository.save(any(Card.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        List<JsonNode> results = runImport(cardLine(VISA), cardLine(MASTERCARD));
+
+        assertEquals("CREATED", results.get(0).get("status").asText());
+        assertEquals("DUPLICATE", results.get(1).get("status").asText());
+    }
+
+    @Test
+    void importCards_NotAuthenticated_ThrowsException() {
+        assertThrows(ResponseStatusException.class, () ->
+                cardImportService.importCards(null, new ByteArrayInputStream(new byte[0])));
+    }
+
+    private List<JsonNode> runImport(String... lines) throws Exception {
+        byte[] body = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        cardImportService.importCards(currentUser, new ByteArrayInputStream(body)).writeTo(output);
+
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            results.add(objectMapper.readTree(line));
+        }
+        return results;
+    }
+
+    private String cardLine(String cardNumber) {
+        return "{\"encryptedCardNumber\":\"enc:" + cardNumber + "\",\"cardHolder\":\"John Doe\","
+                + "\"expiryDate\":\"" + LocalDate.now().plusYears(2) + "\",\"cvv\":\"123\"}";
+    }
+}
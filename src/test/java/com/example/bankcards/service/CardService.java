@@ -1,44 +1,65 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.config.ReadYourWritesTracker;
 import com.example.bankcards.dto.CardDto;
 import com.example.bankcards.dto.request.CreateCardRequest;
 import com.example.bankcards.dto.request.TransferRequest;
 import com.example.bankcards.dto.MessageDto;
+import com.example.bankcards.dto.response.BatchTransferResponse;
+import com.example.bankcards.dto.response.PageResponse;
+import com.example.bankcards.dto.response.TransactionPageResponse;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.LedgerEntry;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.enums.CardStatus;
+import com.example.bankcards.enums.LedgerEntryType;
+import com.example.bankcards.enums.PageTotalMode;
+import com.example.bankcards.enums.TransactionStatus;
 import com.example.bankcards.enums.UserRole;
 import com.example.bankcards.exception.AccessDeniedException;
 import com.example.bankcards.exception.EntityNotFoundException;
 import com.example.bankcards.exception.InsufficientFundsException;
 import com.example.bankcards.exception.InvalidDataException;
+import com.example.bankcards.exception.InvalidOperationException;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.LedgerEntryRepository;
 import com.example.bankcards.repository.TransactionRepository;
+import com.example.bankcards.repository.TransactionRepository.TransactionRow;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.AuthenticatedUser;
+import com.example.bankcards.util.CardFingerprinter;
 import com.example.bankcards.util.CardValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeSet;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -60,20 +81,40 @@ class CardServiceTest {
     private TransactionRepository transactionRepository;
 
     @Mock
-    private UserDetails userDetails;
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private CardFingerprintFilter cardFingerprintFilter;
+
+    @Mock
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private CardMetrics cardMetrics = new CardMetrics(meterRegistry);
+
+    @Spy
+    private CardFingerprinter cardFingerprinter = new CardFingerprinter("7oaOj1g1AfLbcRJlRhXQbAtYF3Slsqjz");
+
+    @Spy
+    private PaginationService paginationService = new PaginationService(PageTotalMode.ESTIMATED, 60);
+
 
     @InjectMocks
     private CardService cardService;
 
     private User user;
+    private AuthenticatedUser currentUser;
     private Card card1;
     private Card card2;
 
     @BeforeEach
     void setUp() {
 
-        ReflectionTestUtils.setField(cardService, "hashAlgorithm", "SHA-256");
-        ReflectionTestUtils.setField(cardService, "cardHashSalt", "7oaOj1g1AfLbcRJlRhXQbAtYF3Slsqjz");
 
         user = User.builder()
                 .id(1L)
@@ -86,9 +127,11 @@ class CardServiceTest {
                 .enabled(true)
                 .build();
 
+        currentUser = AuthenticatedUser.from(user);
+
         card1 = Card.builder()
                 .id(1L)
-                .cardHash("hash1")
+                .cardFingerprint(new byte[]{1})
                 .lastFourDigits("1234")
                 .cardHolder("JOHN DOE")
                 .expiryDate(LocalDate.now().plusYears(2))
@@ -101,7 +144,7 @@ class CardServiceTest {
 
         card2 = Card.builder()
                 .id(2L)
-                .cardHash("hash2")
+                .cardFingerprint(new byte[]{2})
                 .lastFourDigits("5678")
                 .cardHolder("JANE DOE")
                 .expiryDate(LocalDate.now().plusYears(1))
@@ -120,14 +163,14 @@ class CardServiceTest {
                 .expiryDate(LocalDate.now().plusYears(2))
                 .build();
 
-        when(userDetails.getUsername()).thenReturn("test@example.com");
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
         when(rsaService.decrypt(anyString())).thenReturn("4111111111111111");
         when(cardValidator.luhnCheck(anyString())).thenReturn(true);
-        when(cardRepository.existsByCardHash(anyString())).thenReturn(false);
-        when(cardRepository.save(any(Card.class))).thenReturn(card1);
+        when(cardFingerprintFilter.mightContain(any(byte[].class))).thenReturn(true);
+        when(cardRepository.existsByCardFingerprint(any(byte[].class))).thenReturn(false);
+        when(cardRepository.saveAndFlush(any(Card.class))).thenReturn(card1);
 
-        CardDto result = cardService.createCard(userDetails, request);
+        CardDto result = cardService.createCard(currentUser, request);
 
         assertNotNull(result);
         assertEquals("**** **** **** 1234", result.getMaskedNumber());
@@ -135,7 +178,54 @@ class CardServiceTest {
 
         verify(rsaService, times(1)).decrypt(anyString());
         verify(cardValidator, times(1)).luhnCheck(anyString());
-        verify(cardRepository, times(1)).save(any(Card.class));
+        verify(cardRepository, times(1)).saveAndFlush(any(Card.class));
+        verify(cardFingerprintFilter).recordFalsePositives(1);
+        verify(cardFingerprintFilter).add(any(byte[].class));
+        for (String phase : List.of("decrypt", "hash", "duplicate_check", "insert")) {
+            assertEquals(1, meterRegistry.get("bank.card.create.phase").tag("phase", phase).timer().count());
+        }
+    }
+
+    @Test
+    void createCard_DefiniteFilterMiss_SkipsDuplicateProbe() {
+        CreateCardRequest request = CreateCardRequest.builder()
+                .encryptedCardNumber("encryptedCardNumber")
+                .cardHolder("John Doe")
+                .expiryDate(LocalDate.now().plusYears(2))
+                .build();
+
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(rsaService.decrypt(anyString())).thenReturn("4111111111111111");
+        when(cardValidator.luhnCheck(anyString())).thenReturn(true);
+        when(cardFingerprintFilter.mightContain(any(byte[].class))).thenReturn(false);
+        when(cardRepository.saveAndFlush(any(Card.class))).thenReturn(card1);
+
+        cardService.createCard(currentUser, request);
+
+        verify(cardRepository, never()).existsByCardFingerprint(any(byte[].class));
+        verify(cardFingerprintFilter, never()).recordFalsePositives(anyLong());
+    }
+
+    @Test
+    void createCard_InsertHitsUniqueConstraint_ThrowsException() {
+        CreateCardRequest request = CreateCardRequest.builder()
+                .encryptedCardNumber("encryptedCardNumber")
+                .cardHolder("John Doe")
+                .expiryDate(LocalDate.now().plusYears(2))
+                .build();
+
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(rsaService.decrypt(anyString())).thenReturn("4111111111111111");
+        when(cardValidator.luhnCheck(anyString())).thenReturn(true);
+        when(cardFingerprintFilter.mightContain(any(byte[].class))).thenReturn(false);
+        when(cardRepository.saveAndFlush(any(Card.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_cards_card_fingerprint"));
+
+        InvalidDataException exception = assertThrows(InvalidDataException.class,
+                () -> cardService.createCard(currentUser, request));
+
+        assertEquals("Card already exists", exception.getMessage());
+        verify(cardFingerprintFilter, never()).add(any(byte[].class));
     }
 
     @Test
@@ -144,39 +234,34 @@ class CardServiceTest {
                 .encryptedCardNumber("encryptedCardNumber")
                 .build();
 
-        when(userDetails.getUsername()).thenReturn("test@example.com");
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(user));
         when(rsaService.decrypt(anyString())).thenReturn("invalidCardNumber");
         when(cardValidator.luhnCheck(anyString())).thenReturn(false);
 
         assertThrows(InvalidDataException.class, () -> {
-            cardService.createCard(userDetails, request);
+            cardService.createCard(currentUser, request);
         });
 
-        verify(cardRepository, never()).save(any(Card.class));
+        verify(cardRepository, never()).saveAndFlush(any(Card.class));
     }
 
     @Test
     void getMyCards_Success() {
-        when(userDetails.getUsername()).thenReturn("test@example.com");
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(user));
-        when(cardRepository.findAllByUser(any(User.class))).thenReturn(Arrays.asList(card1, card2));
+        when(cardRepository.findAllByUserId(1L)).thenReturn(Arrays.asList(card1, card2));
 
-        List<CardDto> result = cardService.getMyCards(userDetails);
+        List<CardDto> result = cardService.getMyCards(currentUser);
 
 
         assertNotNull(result);
         assertEquals(2, result.size());
-        verify(cardRepository, times(1)).findAllByUser(any(User.class));
+        verify(cardRepository, times(1)).findAllByUserId(1L);
+        verifyNoInteractions(userRepository);
     }
 
     @Test
     void deleteCard_Success() {
-        when(userDetails.getUsername()).thenReturn("test@example.com");
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(user));
         when(cardRepository.findById(anyLong())).thenReturn(Optional.of(card1));
 
-        MessageDto result = cardService.deleteCard(userDetails, 1L);
+        MessageDto result = cardService.deleteCard(currentUser, 1L);
 
         assertNotNull(result);
         assertEquals("Card deleted successfully", result.getMessage());
@@ -185,17 +270,25 @@ class CardServiceTest {
 
     @Test
     void deleteCard_CardNotFound_ThrowsException() {
-        when(userDetails.getUsername()).thenReturn("test@example.com");
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(user));
         when(cardRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class, () -> {
-            cardService.deleteCard(userDetails, 1L);
+            cardService.deleteCard(currentUser, 1L);
         });
 
         verify(cardRepository, never()).delete(any(Card.class));
     }
 
+    @Test
+    void deleteCard_WithLedgerHistory_ThrowsException() {
+        card1.setLastEntryNumber(3L);
+        when(cardRepository.findById(anyLong())).thenReturn(Optional.of(card1));
+
+        assertThrows(InvalidOperationException.class, () -> cardService.deleteCard(currentUser, 1L));
+
+        verify(cardRepository, never()).delete(any(Card.class));
+    }
+
     @Test
     void deleteCard_AccessDenied_ThrowsException() {
         User anotherUser = User.builder()
@@ -204,12 +297,10 @@ class CardServiceTest {
                 .build();
         card1.setUser(anotherUser);
 
-        when(userDetails.getUsername()).thenReturn("test@example.com");
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(user));
         when(cardRepository.findById(anyLong())).thenReturn(Optional.of(card1));
 
         assertThrows(AccessDeniedException.class, () -> {
-            cardService.deleteCard(userDetails, 1L);
+            cardService.deleteCard(currentUser, 1L);
         });
 
         verify(cardRepository, never()).delete(any(Card.class));
@@ -223,23 +314,59 @@ class CardServiceTest {
                 .amount(new BigDecimal("100.00"))
                 .build();
 
-        when(userDetails.getUsername()).thenReturn("test@example.com");
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(user));
-        when(cardRepository.existsByIdAndUserId(1L, 1L)).thenReturn(true);
-        when(cardRepository.existsByIdAndUserId(2L, 1L)).thenReturn(true);
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(card1));
-        when(cardRepository.findById(2L)).thenReturn(Optional.of(card2));
+        when(cardRepository.findAllByIdInAndUserId(List.of(1L, 2L), 1L))
+                .thenReturn(List.of(card1, card2));
+        when(cardRepository.debit(1L, new BigDecimal("100.00"))).thenReturn(balanceChange("900.00", 1));
+        when(cardRepository.credit(2L, new BigDecimal("100.00"))).thenReturn(balanceChange("600.00", 1));
 
-        MessageDto result = cardService.transfer(userDetails, request);
+        MessageDto result = cardService.transfer(currentUser, request, null);
 
         assertNotNull(result);
         assertEquals("Transfer successfully", result.getMessage());
 
-        assertEquals(new BigDecimal("900.00"), card1.getBalance());
-        assertEquals(new BigDecimal("600.00"), card2.getBalance());
-
+        InOrder inOrder = inOrder(cardRepository);
+        inOrder.verify(cardRepository).debit(1L, new BigDecimal("100.00"));
+        inOrder.verify(cardRepository).credit(2L, new BigDecimal("100.00"));
         verify(transactionRepository, times(1)).save(any());
-        verify(cardRepository, times(2)).save(any(Card.class));
+        verify(cardRepository, never()).save(any(Card.class));
+
+        ArgumentCaptor<List<LedgerEntry>> entries = ArgumentCaptor.forClass(List.class);
+        verify(ledgerEntryRepository).saveAll(entries.capture());
+        assertEquals(2, entries.getValue().size());
+        LedgerEntry debit = entries.getValue().get(0);
+        LedgerEntry credit = entries.getValue().get(1);
+        assertEquals(LedgerEntryType.DEBIT, debit.getType());
+        assertSame(card1, debit.getCard());
+        assertEquals(new BigDecimal("900.00"), debit.getBalanceAfter());
+        assertEquals(1L, debit.getEntryNumber());
+        assertEquals(LedgerEntryType.CREDIT, credit.getType());
+        assertSame(card2, credit.getCard());
+        assertEquals(new BigDecimal("600.00"), credit.getBalanceAfter());
+        assertEquals(new BigDecimal("100.00"), credit.getAmount());
+        assertSame(debit.getTransaction(), credit.getTransaction());
+        verifyNoInteractions(userRepository);
+        verify(readYourWritesTracker).recordWrite(1L);
+        assertEquals(1, meterRegistry.get("bank.card.transfer").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void transfer_ReverseDirection_UpdatesInAscendingIdOrder() {
+        TransferRequest request = TransferRequest.builder()
+                .fromCardId(2L)
+                .toCardId(1L)
+                .amount(new BigDecimal("200.00"))
+                .build();
+
+        when(cardRepository.findAllByIdInAndUserId(List.of(2L, 1L), 1L))
+                .thenReturn(List.of(card1, card2));
+        when(cardRepository.credit(1L, new BigDecimal("200.00"))).thenReturn(balanceChange("1200.00", 1));
+        when(cardRepository.debit(2L, new BigDecimal("200.00"))).thenReturn(balanceChange("300.00", 1));
+
+        cardService.transfer(currentUser, request, null);
+
+        InOrder inOrder = inOrder(cardRepository);
+        inOrder.verify(cardRepository).credit(1L, new BigDecimal("200.00"));
+        inOrder.verify(cardRepository).debit(2L, new BigDecimal("200.00"));
     }
 
     @Test
@@ -250,28 +377,184 @@ class CardServiceTest {
                 .amount(new BigDecimal("1500.00"))
                 .build();
 
-        when(userDetails.getUsername()).thenReturn("test@example.com");
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(user));
-        when(cardRepository.existsByIdAndUserId(1L, 1L)).thenReturn(true);
-        when(cardRepository.existsByIdAndUserId(2L, 1L)).thenReturn(true);
+        when(cardRepository.findAllByIdInAndUserId(List.of(1L, 2L), 1L))
+                .thenReturn(List.of(card1, card2));
+        when(cardRepository.debit(1L, new BigDecimal("1500.00"))).thenReturn(Optional.empty());
         when(cardRepository.findById(1L)).thenReturn(Optional.of(card1));
-        when(cardRepository.findById(2L)).thenReturn(Optional.of(card2));
 
         assertThrows(InsufficientFundsException.class, () -> {
-            cardService.transfer(userDetails, request);
+            cardService.transfer(currentUser, request, null);
+        });
+
+        verify(cardRepository, never()).credit(anyLong(), any());
+        verify(transactionRepository, never()).save(any());
+        verifyNoInteractions(ledgerEntryRepository);
+        assertEquals(1, meterRegistry.get("bank.card.transfer").tag("outcome", "insufficient_funds").timer().count());
+    }
+
+    @Test
+    void transfer_TargetCardBlocked_ThrowsException() {
+        TransferRequest request = TransferRequest.builder()
+                .fromCardId(1L)
+                .toCardId(2L)
+                .amount(new BigDecimal("100.00"))
+                .build();
+
+        when(cardRepository.findAllByIdInAndUserId(List.of(1L, 2L), 1L))
+                .thenReturn(List.of(card1, card2));
+        when(cardRepository.debit(1L, new BigDecimal("100.00"))).thenReturn(balanceChange("900.00", 1));
+        when(cardRepository.credit(2L, new BigDecimal("100.00"))).thenReturn(Optional.empty());
+        when(cardRepository.existsById(2L)).thenReturn(true);
+
+        assertThrows(InvalidDataException.class, () -> {
+            cardService.transfer(currentUser, request, null);
         });
 
         verify(transactionRepository, never()).save(any());
-        verify(cardRepository, never()).save(any(Card.class));
+    }
+
+    @Test
+    void transfer_ForeignCard_ThrowsException() {
+        TransferRequest request = TransferRequest.builder()
+                .fromCardId(1L)
+                .toCardId(3L)
+                .amount(new BigDecimal("100.00"))
+                .build();
+
+        when(cardRepository.findAllByIdInAndUserId(List.of(1L, 3L), 1L))
+                .thenReturn(List.of(card1));
+
+        assertThrows(InsufficientFundsException.class, () -> {
+            cardService.transfer(currentUser, request, null);
+        });
+
+        verify(cardRepository, never()).debit(anyLong(), any());
+        verify(transactionRepository, never()).save(any());
+        verifyNoInteractions(readYourWritesTracker);
+        assertEquals(1, meterRegistry.get("bank.card.transfer").tag("outcome", "access_denied").timer().count());
+        assertEquals(0, meterRegistry.get("bank.card.transfer").tag("outcome", "insufficient_funds").timer().count());
+    }
+
+    @Test
+    void transfer_WithIdempotencyKey_RecordsResponse() {
+        TransferRequest request = TransferRequest.builder()
+                .fromCardId(1L)
+                .toCardId(2L)
+                .amount(new BigDecimal("100.00"))
+                .build();
+
+        when(idempotencyService.claim("testuser", "key-1", request)).thenReturn(Optional.empty());
+        when(cardRepository.findAllByIdInAndUserId(List.of(1L, 2L), 1L))
+                .thenReturn(List.of(card1, card2));
+        when(cardRepository.debit(1L, new BigDecimal("100.00"))).thenReturn(balanceChange("900.00", 1));
+        when(cardRepository.credit(2L, new BigDecimal("100.00"))).thenReturn(balanceChange("600.00", 1));
+
+        MessageDto result = cardService.transfer(currentUser, request, "key-1");
+
+        verify(idempotencyService, times(1)).recordCompleted("testuser", "key-1", request, result);
+    }
+
+    @Test
+    void transfer_ReplayedIdempotencyKey_ReturnsOriginalResponse() {
+        TransferRequest request = TransferRequest.builder()
+                .fromCardId(1L)
+                .toCardId(2L)
+                .amount(new BigDecimal("100.00"))
+                .build();
+        MessageDto original = new MessageDto("Transfer successfully");
+
+        when(idempotencyService.claim("testuser", "key-1", request)).thenReturn(Optional.of(original));
+
+        MessageDto result = cardService.transfer(currentUser, request, "key-1");
+
+        assertSame(original, result);
+        verifyNoInteractions(cardRepository, transactionRepository);
+        verify(idempotencyService, never()).recordCompleted(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void transferBatch_LocksCardsOnceAndReportsPerItemResults() {
+        List<TransferRequest> transfers = List.of(
+                TransferRequest.builder().fromCardId(2L).toCardId(1L).amount(new BigDecimal("100.00")).build(),
+                TransferRequest.builder().fromCardId(2L).toCardId(1L).amount(new BigDecimal("450.00")).build(),
+                TransferRequest.builder().fromCardId(1L).toCardId(2L).amount(new BigDecimal("50.00")).build()
+        );
+
+        when(cardRepository.findAllByIdInForUpdate(new TreeSet<>(List.of(1L, 2L)))).thenReturn(List.of(card1, card2));
+        when(cardRepository.debit(2L, new BigDecimal("100.00"))).thenReturn(balanceChange("400.00", 1L));
+        when(cardRepository.credit(1L, new BigDecimal("100.00"))).thenReturn(balanceChange("1100.00", 1L));
+        when(cardRepository.debit(2L, new BigDecimal("450.00"))).thenReturn(Optional.empty());
+        when(cardRepository.debit(1L, new BigDecimal("50.00"))).thenReturn(balanceChange("1050.00", 2L));
+        when(cardRepository.credit(2L, new BigDecimal("50.00"))).thenReturn(balanceChange("450.00", 2L));
+
+        BatchTransferResponse result = cardService.transferBatch(currentUser, transfers);
+
+        assertEquals(2, result.getCompleted());
+        assertEquals(1, result.getFailed());
+        assertEquals(TransactionStatus.COMPLETED, result.getResults().get(0).getStatus());
+        assertEquals(TransactionStatus.FAILED, result.getResults().get(1).getStatus());
+        assertEquals("Not enough money", result.getResults().get(1).getMessage());
+        assertEquals(TransactionStatus.COMPLETED, result.getResults().get(2).getStatus());
+
+        verify(cardRepository, never()).credit(1L, new BigDecimal("450.00"));
+        verify(cardRepository, times(1)).findAllByIdInForUpdate(any());
+        verify(transactionRepository, times(1)).saveAll(argThat(list -> ((List<?>) list).size() == 2));
+    }
+
+    @Test
+    void transferBatch_WritesLedgerEntriesFromStatementResults() {
+        List<TransferRequest> transfers = List.of(
+                TransferRequest.builder().fromCardId(2L).toCardId(1L).amount(new BigDecimal("100.00")).build(),
+                TransferRequest.builder().fromCardId(1L).toCardId(1L).amount(new BigDecimal("30.00")).build()
+        );
+
+        when(cardRepository.findAllByIdInForUpdate(new TreeSet<>(List.of(1L, 2L)))).thenReturn(List.of(card1, card2));
+        when(cardRepository.debit(2L, new BigDecimal("100.00"))).thenReturn(balanceChange("400.00", 8L));
+        when(cardRepository.credit(1L, new BigDecimal("100.00"))).thenReturn(balanceChange("1100.00", 5L));
+        when(cardRepository.debit(1L, new BigDecimal("30.00"))).thenReturn(balanceChange("1070.00", 6L));
+        when(cardRepository.credit(1L, new BigDecimal("30.00"))).thenReturn(balanceChange("1100.00", 7L));
+
+        cardService.transferBatch(currentUser, transfers);
+
+        ArgumentCaptor<List<LedgerEntry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(ledgerEntryRepository).saveAll(captor.capture());
+        List<LedgerEntry> entries = captor.getValue();
+        assertEquals(4, entries.size());
+        assertLedgerEntry(entries.get(0), card2, LedgerEntryType.DEBIT, "400.00", 8L);
+        assertLedgerEntry(entries.get(1), card1, LedgerEntryType.CREDIT, "1100.00", 5L);
+        assertLedgerEntry(entries.get(2), card1, LedgerEntryType.DEBIT, "1070.00", 6L);
+        assertLedgerEntry(entries.get(3), card1, LedgerEntryType.CREDIT, "1100.00", 7L);
+    }
+
+    @Test
+    void transferBatch_ForeignCard_FailsOnlyThatItem() {
+        User anotherUser = User.builder()
+                .id(2L)
+                .username("anotheruser")
+                .build();
+        card2.setUser(anotherUser);
+        List<TransferRequest> transfers = List.of(
+                TransferRequest.builder().fromCardId(1L).toCardId(2L).amount(new BigDecimal("100.00")).build(),
+                TransferRequest.builder().fromCardId(1L).toCardId(1L).amount(new BigDecimal("10.00")).build()
+        );
+
+        when(cardRepository.findAllByIdInForUpdate(new TreeSet<>(List.of(1L, 2L)))).thenReturn(List.of(card1, card2));
+        when(cardRepository.debit(1L, new BigDecimal("10.00"))).thenReturn(balanceChange("990.00", 1L));
+        when(cardRepository.credit(1L, new BigDecimal("10.00"))).thenReturn(balanceChange("1000.00", 2L));
+
+        BatchTransferResponse result = cardService.transferBatch(currentUser, transfers);
+
+        assertEquals(TransactionStatus.FAILED, result.getResults().get(0).getStatus());
+        assertEquals("Access denied", result.getResults().get(0).getMessage());
+        assertEquals(TransactionStatus.COMPLETED, result.getResults().get(1).getStatus());
+        verify(cardRepository, never()).debit(1L, new BigDecimal("100.00"));
     }
 
     @Test
     void requestBlockCard_Success() {
-        when(userDetails.getUsername()).thenReturn("test@example.com");
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(user));
         when(cardRepository.findById(anyLong())).thenReturn(Optional.of(card1));
 
-        MessageDto result = cardService.requestBlockCard(userDetails, 1L);
+        MessageDto result = cardService.requestBlockCard(currentUser, 1L);
 
         assertNotNull(result);
         assertEquals("Card blocked successfully", result.getMessage());
@@ -280,16 +563,95 @@ class CardServiceTest {
     }
 
     @Test
-    void getAllCards_WithFilters() {
-        Page<Card> cardPage = new PageImpl<>(Arrays.asList(card1, card2));
-        Pageable pageable = mock(Pageable.class);
+    void getCardTransactions_FirstPage_ReturnsNextCursor() {
+        TransactionRow newest = transactionRow(3L, LocalDateTime.of(2026, 3, 2, 0, 0), 1L, 2L);
+        TransactionRow middle = transactionRow(2L, LocalDateTime.of(2026, 3, 1, 0, 0), 1L, 2L);
+        TransactionRow oldest = transactionRow(1L, LocalDateTime.of(2026, 3, 1, 0, 0), 2L, 1L);
+
+        when(cardRepository.existsById(1L)).thenReturn(true);
+        when(transactionRepository.findLatestByCardId(1L, 3))
+                .thenReturn(List.of(newest, middle, oldest));
+
+        TransactionPageResponse page = cardService.getCardTransactions(1L, null, 2);
+
+        assertEquals(2, page.getContent().size());
+        assertEquals(3L, page.getContent().get(0).getId());
+        assertEquals("**** **** **** 0002", page.getContent().get(0).getToCardMaskedNumber());
+        assertNotNull(page.getNextCursor());
 
-        when(cardRepository.findAll(pageable)).thenReturn(cardPage);
+        when(transactionRepository.findByCardIdBefore(1L, LocalDate.of(2026, 3, 1), 2L, 3))
+                .thenReturn(List.of(oldest));
 
-        Page<CardDto> result = cardService.getAllCards(null, null, pageable);
+        TransactionPageResponse next = cardService.getCardTransactions(1L, page.getNextCursor(), 2);
+
+        assertEquals(1, next.getContent().size());
+        assertEquals(1L, next.getContent().get(0).getId());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void getCardTransactions_CardNotFound_ThrowsException() {
+        when(cardRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(EntityNotFoundException.class, () -> cardService.getCardTransactions(1L, null, 20));
+
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void getCardTransactions_InvalidCursor_ThrowsException() {
+        when(cardRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(InvalidDataException.class, () -> cardService.getCardTransactions(1L, "not-a-cursor", 20));
+    }
+
+    @Test
+    void getAllCards_WithFilters() {
+        Pageable pageable = PageRequest.of(0, 2);
+        when(cardRepository.findSliceByUserIdAndStatus(1L, CardStatus.ACTIVE, pageable))
+                .thenReturn(new SliceImpl<>(Arrays.asList(card1, card2), pageable, true));
+        when(cardRepository.countByUserIdAndStatus(1L, CardStatus.ACTIVE)).thenReturn(3L);
+
+        PageResponse<CardDto> result = cardService.getAllCards(1L, CardStatus.ACTIVE, PageTotalMode.EXACT, pageable);
 
         assertNotNull(result);
         assertEquals(2, result.getContent().size());
-        verify(cardRepository, times(1)).findAll(pageable);
+        assertEquals(3L, result.getTotalElements());
+        assertEquals(2, result.getTotalPages());
+        verify(cardRepository, never()).estimateCount();
+    }
+
+    private static TransactionRow transactionRow(Long id, LocalDateTime createdAt, Long fromCardId, Long toCardId) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("amount", BigDecimal.ONE);
+        row.put("createdAt", createdAt);
+        row.put("fromCardId", fromCardId);
+        row.put("fromCardMaskedNumber", "**** **** **** 000" + fromCardId);
+        row.put("toCardId", toCardId);
+        row.put("toCardMaskedNumber", "**** **** **** 000" + toCardId);
+        return new SpelAwareProxyProjectionFactory().createProjection(TransactionRow.class, row);
+    }
+
+    private static Optional<CardRepository.BalanceChange> balanceChange(String balance, long entryNumber) {
+        return Optional.of(new CardRepository.BalanceChange() {
+            @Override
+            public BigDecimal getBalance() {
+                return new BigDecimal(balance);
+            }
+
+            @Override
+            public Long getEntryNumber() {
+                return entryNumber;
+            }
+        });
+    }
+
+    private static void assertLedgerEntry(LedgerEntry entry, Card card, LedgerEntryType type,
+                                          String balanceAfter, long entryNumber) {
+        assertSame(card, entry.getCard());
+        assertEquals(type, entry.getType());
+        assertEquals(new BigDecimal(balanceAfter), entry.getBalanceAfter());
+        assertEquals(entryNumber, entry.getEntryNumber());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,152 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.MessageDto;
+import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.entity.IdempotencyRecord;
+import com.example.bankcards.exception.InvalidDataException;
+import com.example.bankcards.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionManager;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    private static final TransferRequest TRANSFER = transfer("100.00");
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(idempotencyRecordRepository, 24, 100);
+    }
+
+    @Test
+    void claim_UnknownKey_ClaimsIt() {
+        when(idempotencyRecordRepository.claim(eq("user@bank.com"), eq("key-1"), any(), any(), any())).thenReturn(1);
+
+        assertTrue(idempotencyService.claim("user@bank.com", "key-1", TRANSFER).isEmpty());
+        verify(idempotencyRecordRepository, never()).findByOwnerAndIdempotencyKey(anyString(), anyString());
+    }
+
+    @Test
+    void claim_CompletedKey_ReplaysAndIsServedFromCacheOnRetry() {
+        byte[] requestHash = claimedHash();
+        when(idempotencyRecordRepository.claim(eq("user@bank.com"), eq("key-1"), any(), any(), any())).thenReturn(0);
+        when(idempotencyRecordRepository.findByOwnerAndIdempotencyKey("user@bank.com", "key-1"))
+                .thenReturn(Optional.of(record(requestHash, "Transfer successfully")));
+
+        Optional<MessageDto> first = idempotencyService.claim("user@bank.com", "key-1", TRANSFER);
+        // The same transfer with the amount written differently is still the same request.
+        Optional<MessageDto> second = idempotencyService.replayIfCached("user@bank.com", "key-1", transfer("100"));
+
+        assertEquals("Transfer successfully", first.orElseThrow().getMessage());
+        assertEquals("Transfer successfully", second.orElseThrow().getMessage());
+        verify(idempotencyRecordRepository, times(1)).claim(anyString(), eq("key-1"), any(), any(), any());
+    }
+
+    @Test
+    void claim_KeyReusedForAnotherTransfer_Rejected() {
+        byte[] requestHash = claimedHash();
+        when(idempotencyRecordRepository.claim(eq("user@bank.com"), eq("key-1"), any(), any(), any())).thenReturn(0);
+        when(idempotencyRecordRepository.findByOwnerAndIdempotencyKey("user@bank.com", "key-1"))
+                .thenReturn(Optional.of(record(requestHash, "Transfer successfully")));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () ->
+                idempotencyService.claim("user@bank.com", "key-1", transfer("200.00")));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatusCode());
+    }
+
+    @Test
+    void recordCompleted_StoresAndCachesResponse() {
+        MessageDto response = new MessageDto("Transfer successfully");
+
+        idempotencyService.recordCompleted("user@bank.com", "key-1", TRANSFER, response);
+
+        verify(idempotencyRecordRepository, times(1)).complete("user@bank.com", "key-1", "Transfer successfully");
+        assertSame(response, idempotencyService.replayIfCached("user@bank.com", "key-1", TRANSFER).orElseThrow());
+        assertThrows(ResponseStatusException.class, () ->
+                idempotencyService.replayIfCached("user@bank.com", "key-1", transfer("1.00")));
+        verify(idempotencyRecordRepository, never()).claim(anyString(), anyString(), any(), any(), any());
+    }
+
+    @Test
+    void replayIfCached_UnknownKey_ReturnsEmpty() {
+        assertTrue(idempotencyService.replayIfCached("user@bank.com", "key-1", TRANSFER).isEmpty());
+        verifyNoInteractions(idempotencyRecordRepository);
+    }
+
+    @Test
+    void replayIfCached_CachedKey_OpensNoTransaction() {
+        idempotencyService.recordCompleted("user@bank.com", "key-1", TRANSFER, new MessageDto("Transfer successfully"));
+        clearInvocations(idempotencyRecordRepository);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        // The same transaction advice Spring wraps the bean in.
+        ProxyFactory proxyFactory = new ProxyFactory(idempotencyService);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new TransactionInterceptor((TransactionManager) transactionManager,
+                new AnnotationTransactionAttributeSource()));
+        IdempotencyService proxied = (IdempotencyService) proxyFactory.getProxy();
+
+        assertEquals("Transfer successfully",
+                proxied.replayIfCached("user@bank.com", "key-1", TRANSFER).orElseThrow().getMessage());
+        verifyNoInteractions(transactionManager, idempotencyRecordRepository);
+
+        proxied.purgeExpired();
+        verify(transactionManager).getTransaction(any());
+    }
+
+    @Test
+    void claim_TooLongKey_ThrowsException() {
+        assertThrows(InvalidDataException.class, () ->
+                idempotencyService.claim("user@bank.com", "k".repeat(101), TRANSFER));
+    }
+
+    /** The hash the service stores for {@link #TRANSFER}, captured from a claim of another key. */
+    private byte[] claimedHash() {
+        ArgumentCaptor<byte[]> requestHash = ArgumentCaptor.forClass(byte[].class);
+        when(idempotencyRecordRepository.claim(eq("user@bank.com"), eq("key-0"), requestHash.capture(), any(), any()))
+                .thenReturn(1);
+        idempotencyService.claim("user@bank.com", "key-0", TRANSFER);
+        return requestHash.getValue();
+    }
+
+    private static IdempotencyRecord record(byte[] requestHash, String responseMessage) {
+        return IdempotencyRecord.builder()
+                .owner("user@bank.com")
+                .idempotencyKey("key-1")
+                .requestHash(requestHash)
+                .responseMessage(responseMessage)
+                .createdAt(LocalDateTime.now())
+                .expiresAt(LocalDateTime.now().plusHours(1))
+                .build();
+    }
+
+    private static TransferRequest transfer(String amount) {
+        return TransferRequest.builder().fromCardId(1L).toCardId(2L).amount(new BigDecimal(amount)).build();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.LedgerEntryDto;
+import com.example.bankcards.dto.response.LedgerPageResponse;
+import com.example.bankcards.dto.response.LedgerVerificationResponse;
+import com.example.bankcards.enums.LedgerEntryType;
+import com.example.bankcards.exception.EntityNotFoundException;
+import com.example.bankcards.exception.InvalidDataException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.LedgerEntryRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerServiceTest {
+
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @InjectMocks
+    private LedgerService ledgerService;
+
+    @Test
+    void getCardLedger_FirstPage_ReturnsNextCursor() {
+        when(cardRepository.existsById(1L)).thenReturn(true);
+        when(ledgerEntryRepository.findByCardIdBefore(1L, Long.MAX_VALUE, PageRequest.of(0, 3)))
+                .thenReturn(List.of(entry(9L), entry(8L), entry(7L)));
+
+        LedgerPageResponse page = ledgerService.getCardLedger(1L, null, 2);
+
+        assertEquals(List.of(9L, 8L), page.getContent().stream().map(LedgerEntryDto::getEntryNumber).toList());
+        assertEquals("8", page.getNextCursor());
+
+        when(ledgerEntryRepository.findByCardIdBefore(1L, 8L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(entry(7L)));
+
+        LedgerPageResponse next = ledgerService.getCardLedger(1L, page.getNextCursor(), 2);
+
+        assertEquals(1, next.getContent().size());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void getCardLedger_CardNotFound_ThrowsException() {
+        when(cardRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(EntityNotFoundException.class, () -> ledgerService.getCardLedger(1L, null, 20));
+
+        verifyNoInteractions(ledgerEntryRepository);
+    }
+
+    @Test
+    void getCardLedger_InvalidCursorOrSize_ThrowsException() {
+        when(cardRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(InvalidDataException.class, () -> ledgerService.getCardLedger(1L, "not-a-cursor", 20));
+        assertThrows(InvalidDataException.class, () -> ledgerService.getCardLedger(1L, null, 101));
+    }
+
+    @Test
+    void verify_NothingFound_IsConsistent() {
+        when(ledgerEntryRepository.findBalanceMismatches(any())).thenReturn(List.of());
+
+        LedgerVerificationResponse result = ledgerService.verify();
+
+        assertTrue(result.isConsistent());
+        assertTrue(result.getBalanceMismatches().isEmpty());
+    }
+
+    @Test
+    void verify_ReportsMismatchesAndBrokenChains() {
+        LedgerEntryRepository.BalanceMismatch mismatch = mock(LedgerEntryRepository.BalanceMismatch.class);
+        when(mismatch.getCardId()).thenReturn(5L);
+        when(mismatch.getCachedBalance()).thenReturn(new BigDecimal("101.00"));
+        when(mismatch.getLedgerBalance()).thenReturn(new BigDecimal("100.00"));
+        when(ledgerEntryRepository.findBalanceMismatches(PageRequest.of(0, 100))).thenReturn(List.of(mismatch));
+        when(ledgerEntryRepository.countBrokenChainEntries()).thenReturn(2L);
+
+        LedgerVerificationResponse result = ledgerService.verify();
+
+        assertFalse(result.isConsistent());
+        assertEquals(5L, result.getBalanceMismatches().get(0).getCardId());
+        assertEquals(new BigDecimal("101.00"), result.getBalanceMismatches().get(0).getCachedBalance());
+        assertEquals(new BigDecimal("100.00"), result.getBalanceMismatches().get(0).getLedgerBalance());
+        assertEquals(2L, result.getBrokenChainEntries());
+        assertEquals(0L, result.getUnbalancedTransactions());
+    }
+
+    private static LedgerEntryDto entry(long entryNumber) {
+        return LedgerEntryDto.builder()
+                .entryNumber(entryNumber)
+                .type(LedgerEntryType.CREDIT)
+                .amount(BigDecimal.TEN)
+                .balanceAfter(BigDecimal.TEN)
+                .build();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.response.PageResponse;
+import com.example.bankcards.enums.PageTotalMode;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaginationServiceTest {
+
+    private final PaginationService paginationService = new PaginationService(PageTotalMode.ESTIMATED, 60);
+
+    private final AtomicInteger counts = new AtomicInteger();
+    private final LongSupplier exactCount = () -> {
+        counts.incrementAndGet();
+        return 42;
+    };
+
+    @Test
+    void toResponse_None_OmitsTotal() {
+        PageResponse<String> result = paginationService.toResponse(slice(0, true), PageTotalMode.NONE, "key", () -> 100, exactCount);
+
+        assertNull(result.getTotalElements());
+        assertNull(result.getTotalPages());
+        assertTrue(result.isHasNext());
+        assertEquals(0, counts.get());
+    }
+
+    @Test
+    void toResponse_LastPage_TotalFromSliceWithoutCount() {
+        PageResponse<String> result = paginationService.toResponse(slice(3, false), PageTotalMode.EXACT, "key", () -> 100, exactCount);
+
+        assertEquals(32L, result.getTotalElements());
+        assertEquals(4, result.getTotalPages());
+        assertEquals(0, counts.get());
+    }
+
+    @Test
+    void toResponse_Exact_CountsEveryRequest() {
+        paginationService.toResponse(slice(0, true), PageTotalMode.EXACT, "key", () -> 100, exactCount);
+        PageResponse<String> result = paginationService.toResponse(slice(0, true), PageTotalMode.EXACT, "key", () -> 100, exactCount);
+
+        assertEquals(42L, result.getTotalElements());
+        assertEquals(PageTotalMode.EXACT, result.getTotalMode());
+        assertEquals(2, counts.get());
+    }
+
+    @Test
+    void toResponse_EstimatedUnfiltered_UsesPlannerEstimate() {
+        PageResponse<String> result = paginationService.toResponse(slice(0, true), null, "key", () -> 100, exactCount);
+
+        assertEquals(100L, result.getTotalElements());
+        assertEquals(10, result.getTotalPages());
+        assertEquals(PageTotalMode.ESTIMATED, result.getTotalMode());
+        assertEquals(0, counts.get());
+    }
+
+    @Test
+    void toResponse_EstimatedFiltered_CachesCount() {
+        paginationService.toResponse(slice(0, true), PageTotalMode.ESTIMATED, "key", null, exactCount);
+        PageResponse<String> result = paginationService.toResponse(slice(1, true), PageTotalMode.ESTIMATED, "key", null, exactCount);
+
+        assertEquals(42L, result.getTotalElements());
+        assertEquals(1, counts.get());
+    }
+
+    @Test
+    void toResponse_StaleEstimate_NotBelowRowsSeen() {
+        PageResponse<String> result = paginationService.toResponse(slice(5, true), PageTotalMode.ESTIMATED, "key", () -> 0, exactCount);
+
+        assertEquals(61L, result.getTotalElements());
+        assertEquals(7, result.getTotalPages());
+    }
+
+    private static SliceImpl<String> slice(int page, boolean hasNext) {
+        List<String> content = List.of("a", "b", "c", "d", "e", "f", "g", "h", "i", "j");
+        return new SliceImpl<>(hasNext ? content : content.subList(0, 2), PageRequest.of(page, 10), hasNext);
+    }
+}
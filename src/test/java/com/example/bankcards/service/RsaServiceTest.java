@@ -8,8 +8,15 @@ import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
 import java.util.Base64;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -79,4 +86,72 @@ class RsaServiceTest {
         assertNotNull(ReflectionTestUtils.getField(rsaService, "privateKey"));
         assertNotNull(ReflectionTestUtils.getField(rsaService, "publicKey"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void decrypt_RepeatedCalls_ReuseCipher() throws Exception {
+        String encrypted = rsaEncrypt(originalText.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(originalText, rsaService.decrypt(encrypted));
+        assertEquals(originalText, rsaService.decrypt(encrypted));
+    }
+
+    @Test
+    void decrypt_AfterFailure_StillDecrypts() throws Exception {
+        String corrupted = Base64.getEncoder().encodeToString(new byte[256]);
+
+        assertThrows(InvalidDataException.class, () -> rsaService.decrypt(corrupted));
+        assertEquals(originalText, rsaService.decrypt(rsaEncrypt(originalText.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void decryptWithSessionKey_Success() throws Exception {
+        byte[] keyBytes = new byte[32];
+        new SecureRandom().nextBytes(keyBytes);
+
+        SecretKey sessionKey = rsaService.unwrapSessionKey(rsaEncrypt(keyBytes));
+
+        assertEquals(originalText, rsaService.decrypt(sessionKey, aesEncrypt(keyBytes, originalText)));
+        assertEquals("5500000000000004", rsaService.decrypt(sessionKey, aesEncrypt(keyBytes, "5500000000000004")));
+    }
+
+    @Test
+    void decryptWithSessionKey_TamperedPayload_ThrowsException() throws Exception {
+        byte[] keyBytes = new byte[16];
+        new SecureRandom().nextBytes(keyBytes);
+        SecretKey sessionKey = rsaService.unwrapSessionKey(rsaEncrypt(keyBytes));
+
+        byte[] payload = Base64.getDecoder().decode(aesEncrypt(keyBytes, originalText));
+        payload[payload.length - 1] ^= 1;
+
+        assertThrows(InvalidDataException.class, () ->
+                rsaService.decrypt(sessionKey, Base64.getEncoder().encodeToString(payload)));
+    }
+
+    @Test
+    void unwrapSessionKey_InvalidKeyLength_ThrowsException() throws Exception {
+        String wrapped = rsaEncrypt(new byte[10]);
+
+        assertThrows(InvalidDataException.class, () -> rsaService.unwrapSessionKey(wrapped));
+    }
+
+    private String rsaEncrypt(byte[] data) throws Exception {
+        Cipher cipher = Cipher.getInstance("RSA/ECB/OAEPWithSHA-256AndMGF1Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, keyPair.getPublic());
+        return Base64.getEncoder().encodeToString(cipher.doFinal(data));
+    }
+
+    private String aesEncrypt(byte[] keyBytes, String plainText) throws Exception {
+        byte[] iv = new byte[RsaService.GCM_IV_LENGTH];
+        new SecureRandom().nextBytes(iv);
+
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(keyBytes, "AES"),
+                new GCMParameterSpec(RsaService.GCM_TAG_LENGTH_BITS, iv));
+        byte[] cipherText = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
+
+        return Base64.getEncoder().encodeToString(ByteBuffer.allocate(iv.length + cipherText.length)
+                .put(iv)
+                .put(cipherText)
+                .array());
+    }
+}
@@ -1,18 +1,24 @@
 package com.example.bankcards.service;
 
 import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.dto.response.PageResponse;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.enums.PageTotalMode;
 import com.example.bankcards.enums.UserRole;
 import com.example.bankcards.exception.EntityNotFoundException;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.TokenDenylist;
+import com.example.bankcards.security.UserCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 
 import java.util.Arrays;
 import java.util.List;
@@ -29,6 +35,15 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private TokenDenylist tokenDenylist;
+
+    @Mock
+    private UserCache userCache;
+
+    @Spy
+    private PaginationService paginationService = new PaginationService(PageTotalMode.ESTIMATED, 60);
+
     @InjectMocks
     private UserService userService;
 
@@ -56,21 +71,38 @@ class UserServiceTest {
 
     @Test
     void getAllUsers_Success() {
-        List<User> users = Arrays.asList(user1, user2);
-        when(userRepository.findAll()).thenReturn(users);
+        Pageable pageable = PageRequest.of(0, 10);
+        when(userRepository.findSliceBy(pageable)).thenReturn(new SliceImpl<>(Arrays.asList(user1, user2), pageable, false));
 
-        Page<UserDto> result = userService.getAllUsers(any(Pageable.class));
+        PageResponse<UserDto> result = userService.getAllUsers(null, pageable);
 
         assertNotNull(result);
         assertEquals(2, result.getTotalElements());
+        assertEquals(1, result.getTotalPages());
+        assertFalse(result.isHasNext());
 
-        assertEquals("user1", result.getContent().getFirst().getUsername());
-        assertEquals(UserRole.USER, result.getContent().getFirst().getRole());
+        assertEquals("user1", result.getContent().get(0).getUsername());
+        assertEquals(UserRole.USER, result.getContent().get(0).getRole());
+
+        assertEquals("user2", result.getContent().get(1).getUsername());
+        assertEquals(UserRole.ADMIN, result.getContent().get(1).getRole());
+
+        verify(userRepository, never()).count();
+        verify(userRepository, never()).estimateCount();
+    }
+
+    @Test
+    void getAllUsers_NotLastPage_UsesEstimate() {
+        Pageable pageable = PageRequest.of(0, 2);
+        when(userRepository.findSliceBy(pageable)).thenReturn(new SliceImpl<>(Arrays.asList(user1, user2), pageable, true));
+        when(userRepository.estimateCount()).thenReturn(1000L);
 
-        assertEquals("user2", result.getContent().getFirst().getUsername());
-        assertEquals(UserRole.ADMIN, result.getContent().getFirst().getRole());
+        PageResponse<UserDto> result = userService.getAllUsers(PageTotalMode.ESTIMATED, pageable);
 
-        verify(userRepository, times(1)).findAll();
+        assertEquals(1000L, result.getTotalElements());
+        assertEquals(500, result.getTotalPages());
+        assertTrue(result.isHasNext());
+        verify(userRepository, never()).count();
     }
 
     @Test
@@ -110,6 +142,8 @@ class UserServiceTest {
 
         verify(userRepository, times(1)).findById(1L);
         verify(userRepository, times(1)).save(any(User.class));
+        verify(userCache, times(1)).evict(user1);
+        verify(tokenDenylist, times(1)).revoke("user1");
     }
 
     @Test
@@ -124,6 +158,8 @@ class UserServiceTest {
 
         verify(userRepository, times(1)).findById(1L);
         verify(userRepository, times(1)).save(any(User.class));
+        verify(userCache, times(1)).evict(user1);
+        verify(tokenDenylist, times(1)).revoke("user1");
     }
 
     @Test
@@ -139,5 +175,7 @@ class UserServiceTest {
 
         verify(userRepository, times(1)).findById(1L);
         verify(userRepository, times(1)).save(any(User.class));
+        verify(userCache, times(1)).evict(user1);
+        verifyNoInteractions(tokenDenylist);
     }
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardFingerprinterTest {
+
+    private static final String SALT = "7oaOj1g1AfLbcRJlRhXQbAtYF3Slsqjz";
+
+    private final CardFingerprinter cardFingerprinter = new CardFingerprinter(SALT);
+
+    @Test
+    void fingerprint_IsFixedWidthAndDeterministic() {
+        byte[] first = cardFingerprinter.fingerprint("4111111111111111");
+        byte[] second = cardFingerprinter.fingerprint("4111111111111111");
+
+        assertEquals(CardFingerprinter.FINGERPRINT_LENGTH, first.length);
+        assertArrayEquals(first, second);
+        assertFalse(Arrays.equals(first, cardFingerprinter.fingerprint("5500000000000004")));
+    }
+
+    @Test
+    void fingerprint_MatchesKeyedLegacyDigest() throws Exception {
+        byte[] legacyDigest = MessageDigest.getInstance("SHA-256")
+                .digest(("4111111111111111" + SALT).getBytes(StandardCharsets.UTF_8));
+
+        byte[] rekeyed = CardFingerprinter.newMac(SALT.getBytes(StandardCharsets.UTF_8)).doFinal(legacyDigest);
+
+        assertArrayEquals(rekeyed, cardFingerprinter.fingerprint("4111111111111111"));
+    }
+
+    @Test
+    void fingerprint_DependsOnKey() {
+        CardFingerprinter otherKey = new CardFingerprinter("another-salt");
+
+        assertFalse(Arrays.equals(
+                cardFingerprinter.fingerprint("4111111111111111"),
+                otherKey.fingerprint("4111111111111111")));
+    }
+}
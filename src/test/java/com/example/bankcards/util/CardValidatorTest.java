@@ -0,0 +1,53 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardValidatorTest {
+
+    private final CardValidator cardValidator = new CardValidator();
+
+    @Test
+    void luhnCheck_ValidNumbers() {
+        assertTrue(cardValidator.luhnCheck("4111111111111111"));
+        assertTrue(cardValidator.luhnCheck("5500000000000004"));
+        assertTrue(cardValidator.luhnCheck("378282246310005"));
+        assertTrue(cardValidator.luhnCheck("4111 1111-1111 1111"));
+        assertTrue(cardValidator.luhnCheck(new StringBuilder("4000000000000002")));
+    }
+
+    @Test
+    void luhnCheck_InvalidNumbers() {
+        assertFalse(cardValidator.luhnCheck((CharSequence) null));
+        assertFalse(cardValidator.luhnCheck(""));
+        assertFalse(cardValidator.luhnCheck("   "));
+        assertFalse(cardValidator.luhnCheck("4111111111111112"));
+        assertFalse(cardValidator.luhnCheck("0000000000"));
+        assertFalse(cardValidator.luhnCheck("00000000000000000000"));
+        assertFalse(cardValidator.luhnCheck("411111111111111a"));
+    }
+
+    @Test
+    void luhnCheck_Bytes_MatchesCharSequence() {
+        byte[] payload = "xx4111111111111111yy".getBytes(StandardCharsets.US_ASCII);
+
+        assertTrue(cardValidator.luhnCheck(payload, 2, 16));
+        assertFalse(cardValidator.luhnCheck(payload, 2, 15));
+        assertFalse(cardValidator.luhnCheck(null, 0, 0));
+    }
+
+    @Test
+    void getCardType_ByPrefix() {
+        assertEquals("VISA", CardValidator.getCardType("4111 1111 1111 1111"));
+        assertEquals("MASTERCARD", CardValidator.getCardType("5500000000000004"));
+        assertEquals("AMEX", CardValidator.getCardType("3782 822463 10005"));
+        assertEquals("AMEX", CardValidator.getCardType("340000000000009"));
+        assertEquals("UNKNOWN", CardValidator.getCardType("3530111333300000"));
+        assertEquals("DISCOVER", CardValidator.getCardType("6011111111111117"));
+        assertEquals("UNKNOWN", CardValidator.getCardType("3"));
+        assertEquals("UNKNOWN", CardValidator.getCardType(""));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstancePoolTest {
+
+    private final AtomicInteger created = new AtomicInteger();
+    private final InstancePool<Object> pool = new InstancePool<>(2, () -> {
+        created.incrementAndGet();
+        return new Object();
+    });
+
+    @Test
+    void borrow_ReusesReleasedInstance() {
+        Object first = pool.borrow();
+        pool.release(first);
+
+        assertSame(first, pool.borrow());
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    void release_BeyondCapacity_DropsInstance() {
+        Object first = pool.borrow();
+        Object second = pool.borrow();
+        Object third = pool.borrow();
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+
+        assertSame(first, pool.borrow());
+        assertSame(second, pool.borrow());
+        assertNotSame(third, pool.borrow());
+        assertEquals(4, created.get());
+    }
+
+    @Test
+    void borrow_FromVirtualThreads_ReusesInstances() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            Thread thread = Thread.ofVirtual().start(() -> pool.release(pool.borrow()));
+            thread.join();
+        }
+
+        assertEquals(1, created.get());
+    }
+}